@@ -0,0 +1,76 @@
+package benchmarks.gateway;
+
+import filter.JwtTokenProvider;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação de JWT no gateway: chamadas com o token já verificado (cache) contra a verificação completa do jjwt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider provider;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        String encodedSecret = Base64.getEncoder().encodeToString(secret);
+
+        // Os campos são injetados por @Value na aplicação
+        provider = new JwtTokenProvider(new SimpleMeterRegistry());
+        set(provider, "secret", encodedSecret);
+        set(provider, "cacheMaxSize", 10_000L);
+        provider.init();
+
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secret)).build();
+        token = provider.generateToken("admin@empresa.com", "ADMIN");
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = JwtTokenProvider.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getRoleFromToken() {
+        return provider.getRoleFromToken(token);
+    }
+
+    // Custo sem o cache: HMAC + parse do JSON a cada chamada
+    @Benchmark
+    public Object parseWithoutCache() {
+        return parser.parseClaimsJws(token).getBody().get("role");
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks.measurement;
+
+import config.ItemJsonEncoder;
+import dto.ItemPageDTO;
+import io.netty.buffer.PooledByteBufAllocator;
+import model.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escrita de uma página de itens (GET api/itens?limit=) no buffer da resposta: o Jackson2JsonEncoder padrão
+ * do WebFlux contra o ItemJsonEncoder. Os dois usam a mesma fábrica de buffers do Netty que o servidor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemEncodingBenchmark {
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClass(ItemPageDTO.class);
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Jackson2JsonEncoder jacksonEncoder = new Jackson2JsonEncoder();
+    private final ItemJsonEncoder itemEncoder = new ItemJsonEncoder();
+
+    private ItemPageDTO page;
+
+    @Setup
+    public void setUp() {
+        List<Item> itens = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            itens.add(new Item("Item de carga " + i, i % 2 == 0 ? "un" : "kg"));
+        }
+        page = new ItemPageDTO(itens, null);
+    }
+
+    @Benchmark
+    public int jackson() {
+        return release(jacksonEncoder.encodeValue(page, bufferFactory, PAGE_TYPE, MediaType.APPLICATION_JSON, Map.of()));
+    }
+
+    @Benchmark
+    public int itemJsonEncoder() {
+        return release(itemEncoder.encodeValue(page, bufferFactory, PAGE_TYPE, MediaType.APPLICATION_JSON, Map.of()));
+    }
+
+    private static int release(DataBuffer buffer) {
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
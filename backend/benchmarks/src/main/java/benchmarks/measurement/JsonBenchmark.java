@@ -0,0 +1,76 @@
+package benchmarks.measurement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dto.ItemDTO;
+import message.dto.PermissionEventDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialização JSON dos DTOs que passam pelo Kafka (PermissionEventDTO) e pela API de itens (ItemDTO).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private ObjectWriter permissionWriter;
+    private ObjectReader permissionReader;
+    private ObjectWriter itemWriter;
+    private ObjectReader itemReader;
+
+    private PermissionEventDTO permissionEvent;
+    private byte[] permissionJson;
+    private ItemDTO item;
+    private byte[] itemJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        permissionWriter = objectMapper.writerFor(PermissionEventDTO.class);
+        permissionReader = objectMapper.readerFor(PermissionEventDTO.class);
+        itemWriter = objectMapper.writerFor(ItemDTO.class);
+        itemReader = objectMapper.readerFor(ItemDTO.class);
+
+        permissionEvent = new PermissionEventDTO("ADMIN", "CREATE_ITEM", "UPDATED", true);
+        permissionJson = permissionWriter.writeValueAsBytes(permissionEvent);
+        item = new ItemDTO("Cimento CP-II 50kg", "saco");
+        itemJson = itemWriter.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public byte[] serializePermissionEvent() throws IOException {
+        return permissionWriter.writeValueAsBytes(permissionEvent);
+    }
+
+    @Benchmark
+    public PermissionEventDTO deserializePermissionEvent() throws IOException {
+        return permissionReader.readValue(permissionJson);
+    }
+
+    @Benchmark
+    public byte[] serializeItem() throws IOException {
+        return itemWriter.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public ItemDTO deserializeItem() throws IOException {
+        return itemReader.readValue(itemJson);
+    }
+}
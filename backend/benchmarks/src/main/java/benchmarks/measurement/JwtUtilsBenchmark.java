@@ -0,0 +1,54 @@
+package benchmarks.measurement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.JwtUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extração da role do JWT em measurement: parser de streaming atual contra a versão com split + JsonNode.
+ * Rode com {@code -prof gc} para comparar a alocação por operação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark {
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+        // Mesmo formato dos tokens gerados pelo gateway; sem caracteres exclusivos do base64url,
+        // que a implementação antiga não decodifica
+        String payload = encoder.encodeToString(
+                "{\"sub\":\"admin@empresa.com\",\"role\":\"ADMIN\",\"iat\":1700000000,\"exp\":1700003600}"
+                        .getBytes(StandardCharsets.UTF_8));
+        token = header + "." + payload + ".c2lnbmF0dXJh";
+    }
+
+    @Benchmark
+    public String streaming() {
+        return JwtUtils.getRoleFromToken(token);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyJwtUtils.getRoleFromToken(token);
+    }
+}
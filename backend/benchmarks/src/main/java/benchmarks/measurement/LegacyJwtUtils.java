@@ -0,0 +1,32 @@
+package benchmarks.measurement;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Base64;
+
+/**
+ * Implementação anterior de utils.JwtUtils.getRoleFromToken, mantida como referência de comparação.
+ * O println original foi retirado para não medir I/O de console.
+ */
+final class LegacyJwtUtils {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LegacyJwtUtils() {
+    }
+
+    static String getRoleFromToken(String token) {
+        try {
+            String[] splitToken = token.split("\\.");
+            if (splitToken.length < 2) return null;
+
+            String payloadJson = new String(Base64.getDecoder().decode(splitToken[1]));
+
+            JsonNode payloadNode = objectMapper.readTree(payloadJson);
+            return payloadNode.has("role") ? payloadNode.get("role").asText() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks.measurement;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import message.model.RolePermissionModel;
+import message.repository.RolePermissionRepository;
+import message.service.PermissionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import utils.TrustedIdentity;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PermissionService.hasPermission de measurement com o repositório substituído por um stub em memória.
+ * matrixLoaded=false mede o caminho de fallback (consulta ao repositório a cada chamada).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean matrixLoaded;
+
+    private PermissionService permissionService;
+    private Context identityContext;
+    private String bearerToken;
+
+    @Setup
+    public void setUp() {
+        List<RolePermissionModel> permissions = new ArrayList<>();
+        for (String role : new String[]{"ADMIN", "MANAGER", "USER"}) {
+            for (String action : new String[]{"READ_ITEM", "CREATE_ITEM", "DELETE_ITEM", "READ_USER", "CREATE_USER", "DELETE_USER"}) {
+                permissions.add(new RolePermissionModel(role, action, !role.equals("USER") || action.startsWith("READ")));
+            }
+        }
+
+        // transactionalOperator não é usado por hasPermission
+        permissionService = new PermissionService(stubRepository(permissions), null, new SimpleMeterRegistry());
+        if (matrixLoaded) {
+            permissionService.reloadPermissionMatrix().block();
+        }
+
+        identityContext = Context.of(TrustedIdentity.class, new TrustedIdentity("admin@empresa.com", "ADMIN"));
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"admin@empresa.com\",\"role\":\"ADMIN\",\"exp\":1700003600}".getBytes(StandardCharsets.UTF_8));
+        bearerToken = "Bearer eyJhbGciOiJIUzI1NiJ9." + payload + ".c2lnbmF0dXJh";
+    }
+
+    private static RolePermissionRepository stubRepository(List<RolePermissionModel> permissions) {
+        return (RolePermissionRepository) Proxy.newProxyInstance(
+                RolePermissionRepository.class.getClassLoader(),
+                new Class<?>[]{RolePermissionRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> Flux.fromIterable(permissions);
+                    case "findByRoleAndAction" -> Mono.justOrEmpty(permissions.stream()
+                            .filter(p -> p.getRole().equals(args[0]) && p.getAction().equals(args[1]))
+                            .findFirst());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public Boolean trustedIdentity() {
+        return permissionService.hasPermission(bearerToken, "read_item")
+                .contextWrite(identityContext)
+                .block();
+    }
+
+    @Benchmark
+    public Boolean jwtFallback() {
+        return permissionService.hasPermission(bearerToken, "read_item").block();
+    }
+}
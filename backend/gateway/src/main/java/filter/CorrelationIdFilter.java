@@ -0,0 +1,43 @@
+package filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Garante um X-Correlation-Id em toda requisição roteada: mantém o do cliente se for válido, senão gera um.
+ * Os serviços colocam esse valor em todas as linhas de log da requisição.
+ */
+@Component
+public class CorrelationIdFilter implements GlobalFilter, Ordered {
+
+    public static final String HEADER = "X-Correlation-Id";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String received = exchange.getRequest().getHeaders().getFirst(HEADER);
+        if (received != null && VALID_ID.matcher(received).matches()) {
+            exchange.getResponse().getHeaders().set(HEADER, received);
+            return chain.filter(exchange);
+        }
+
+        String correlationId = UUID.randomUUID().toString();
+        exchange.getResponse().getHeaders().set(HEADER, correlationId);
+        return chain.filter(exchange.mutate()
+                .request(request -> request.headers(headers -> headers.set(HEADER, correlationId)))
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
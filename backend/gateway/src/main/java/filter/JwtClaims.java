@@ -0,0 +1,9 @@
+package filter;
+
+import java.time.Instant;
+
+/**
+ * Claims de um token JWT já verificado (assinatura e expiração).
+ */
+public record JwtClaims(String subject, String role, Instant expiresAt) {
+}
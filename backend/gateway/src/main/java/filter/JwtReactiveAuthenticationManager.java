@@ -24,7 +24,8 @@ public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationM
     public Mono<Authentication> authenticate(Authentication authentication) {
         String token = authentication.getCredentials().toString();
 
-        if (!jwtTokenProvider.validateToken(token)) {
+        JwtClaims claims = jwtTokenProvider.parseToken(token);
+        if (claims == null) {
             return Mono.deferContextual(Mono::just)
                     .flatMap(context -> {
                         ServerWebExchange exchange = context.get(ServerWebExchange.class);
@@ -32,11 +33,8 @@ public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationM
                     });
         }
 
-        String username = jwtTokenProvider.getUsernameFromToken(token);
-        String role = jwtTokenProvider.getRoleFromToken(token);
-
-        return Mono.just(new UsernamePasswordAuthenticationToken(username, token,
-                Collections.singletonList(new SimpleGrantedAuthority(role))));
+        return Mono.just(new UsernamePasswordAuthenticationToken(claims.subject(), token,
+                Collections.singletonList(new SimpleGrantedAuthority(claims.role()))));
     }
 
     private Mono<Authentication> buildErrorResponse(ServerWebExchange exchange, HttpStatus status, String message) {
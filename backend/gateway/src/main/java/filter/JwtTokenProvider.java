@@ -1,30 +1,74 @@
 package filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
     private Key key;
+    private JwtParser parser;
+
+    /**
+     * Tokens já verificados, indexados pelo segmento de assinatura e expirando junto com o claim "exp".
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private final Timer cachedValidation;
+    private final Timer verifiedValidation;
+    private final Timer rejectedValidation;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.cachedValidation = validationTimer(meterRegistry, "hit", "valid");
+        this.verifiedValidation = validationTimer(meterRegistry, "miss", "valid");
+        this.rejectedValidation = validationTimer(meterRegistry, "miss", "invalid");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String cache, String result) {
+        return Timer.builder("gateway.jwt.validation")
+                .description("Validação do JWT recebido no cabeçalho Authorization")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
     @PostConstruct
     public void init() {
         byte[] secretBytes = Base64.getDecoder().decode(secret);
         this.key = Keys.hmacShaKeyFor(secretBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     @Value("${jwt.secret}")
     String secret;
 
+    @Value("${jwt.cache.max-size:10000}")
+    long cacheMaxSize;
+
     public String generateToken(String email, String role) {
         Claims claims = Jwts.claims().setSubject(email);
         claims.put("role", role);
@@ -41,34 +85,78 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifica o token uma única vez e devolve seus claims.
+     * Requisições repetidas com o mesmo token são respondidas pelo cache, sem HMAC nem parse de JSON.
+     * Retorna null se o token for inválido ou estiver expirado.
+     */
+    public JwtClaims parseToken(String token) {
+        long start = System.nanoTime();
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < 0) {
+            rejectedValidation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        String signature = token.substring(signatureStart + 1);
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(signature);
+        // A assinatura sozinha não basta: o token inteiro precisa ser o mesmo que foi verificado
+        if (cached != null && cached.token().equals(token)) {
+            cachedValidation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached.claims();
+        }
+
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            Claims body = parser.parseClaimsJws(token).getBody();
+            Date expiration = body.getExpiration();
+            JwtClaims claims = new JwtClaims(
+                    body.getSubject(),
+                    body.get("role", String.class),
+                    expiration != null ? expiration.toInstant() : null);
+            if (expiration != null) {
+                verifiedTokens.put(signature, new VerifiedToken(token, claims));
+            }
+            verifiedValidation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            rejectedValidation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
         }
     }
 
+    public boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        JwtClaims claims = parseToken(token);
+        return claims != null ? claims.subject() : null;
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        JwtClaims claims = parseToken(token);
+        return claims != null ? claims.role() : null;
+    }
+
+    private record VerifiedToken(String token, JwtClaims claims) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String signature, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.claims().expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String signature, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(signature, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String signature, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
 }
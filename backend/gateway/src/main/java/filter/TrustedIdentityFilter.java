@@ -0,0 +1,78 @@
+package filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Base64;
+
+/**
+ * Repassa aos serviços a identidade já verificada pelo gateway, evitando que cada serviço decodifique o JWT de novo.
+ * Cabeçalhos X-Auth-* vindos do cliente são sempre descartados.
+ */
+@Component
+public class TrustedIdentityFilter implements GlobalFilter, Ordered {
+
+    private final TrustedIdentityHeaders identityHeaders;
+
+    public TrustedIdentityFilter(@Value("${identity.header.secret}") String secret) {
+        this.identityHeaders = new TrustedIdentityHeaders(Base64.getDecoder().decode(secret));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerWebExchange stripped = exchange.mutate()
+                .request(request -> request.headers(TrustedIdentityFilter::stripIdentity))
+                .build();
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(authentication -> withIdentity(stripped, authentication))
+                .defaultIfEmpty(stripped)
+                .flatMap(chain::filter);
+    }
+
+    private ServerWebExchange withIdentity(ServerWebExchange exchange, Authentication authentication) {
+        String subject = authentication.getName();
+        String role = authentication.getAuthorities().stream()
+                .findFirst()
+                .map(GrantedAuthority::getAuthority)
+                .orElse(null);
+        if (subject == null || role == null) {
+            return exchange;
+        }
+
+        long issuedAt = System.currentTimeMillis() / 1000;
+        String signature = identityHeaders.sign(subject, role, issuedAt);
+        return exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                    headers.set(TrustedIdentityHeaders.SUBJECT, subject);
+                    headers.set(TrustedIdentityHeaders.ROLE, role);
+                    headers.set(TrustedIdentityHeaders.ISSUED_AT, Long.toString(issuedAt));
+                    headers.set(TrustedIdentityHeaders.SIGNATURE, signature);
+                }))
+                .build();
+    }
+
+    private static void stripIdentity(HttpHeaders headers) {
+        headers.remove(TrustedIdentityHeaders.SUBJECT);
+        headers.remove(TrustedIdentityHeaders.ROLE);
+        headers.remove(TrustedIdentityHeaders.ISSUED_AT);
+        headers.remove(TrustedIdentityHeaders.SIGNATURE);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,48 @@
+package filter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Cabeçalhos internos com a identidade já verificada pelo gateway.
+ * O MAC cobre subject, role e instante de emissão; user e measurement validam com o mesmo segredo.
+ * A validação é copiada em security.identity.TrustedIdentityHeaders (user) e utils.TrustedIdentityHeaders
+ * (measurement): qualquer mudança no formato precisa ser feita nas três cópias ao mesmo tempo.
+ */
+public final class TrustedIdentityHeaders {
+
+    public static final String SUBJECT = "X-Auth-Subject";
+    public static final String ROLE = "X-Auth-Role";
+    public static final String ISSUED_AT = "X-Auth-Issued-At";
+    public static final String SIGNATURE = "X-Auth-Signature";
+
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public TrustedIdentityHeaders(byte[] secret) {
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String sign(String subject, String role, long issuedAt) {
+        Mac mac = macs.get();
+        byte[] digest = mac.doFinal((subject + '\n' + role + '\n' + issuedAt).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, SIGNATURE_BYTES));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Postgres e Kafka dentro da JVM do teste de carga, já com os schemas dos serviços e os dados de teste.
+ * Não depende de rede nem de Docker: o Postgres vem dos binários empacotados no embedded-postgres.
+ */
+final class EmbeddedInfrastructure implements AutoCloseable {
+
+    // O measurement usa localhost:29092 fixo no KafkaConfig
+    static final int KAFKA_PORT = 29092;
+
+    static final String USER_DB = "user_db";
+    static final String MEASUREMENT_DB = "measurement_db";
+    static final String DB_USER = "postgres";
+
+    static final String PASSWORD = "loadtest123";
+
+    private static final String[] ROLES = {"ADMIN", "TECHNICIAN", "ENGINEER", "COORDINATOR"};
+    private static final String[] ACTIONS = {"CREATE_ITEM", "READ_ITEM", "DELETE_ITEM", "CREATE_USER", "READ_USER", "DELETE_USER"};
+
+    private final EmbeddedPostgres postgres;
+    private final EmbeddedKafkaBroker kafka;
+
+    private EmbeddedInfrastructure(EmbeddedPostgres postgres, EmbeddedKafkaBroker kafka) {
+        this.postgres = postgres;
+        this.kafka = kafka;
+    }
+
+    static EmbeddedInfrastructure start() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "300")
+                .start();
+
+        EmbeddedKafkaBroker kafka = new EmbeddedKafkaBroker(1)
+                .kafkaPorts(KAFKA_PORT)
+                .brokerProperty("auto.create.topics.enable", "true");
+        try {
+            kafka.afterPropertiesSet();
+        } catch (RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+        return new EmbeddedInfrastructure(postgres, kafka);
+    }
+
+    int postgresPort() {
+        return postgres.getPort();
+    }
+
+    String kafkaBootstrapServers() {
+        return kafka.getBrokersAsString();
+    }
+
+    /**
+     * Cria os bancos dos dois serviços a partir dos init.sql do repositório e insere usuários, permissões e itens.
+     */
+    TestData seed(Path backendDir, int users, int items) throws IOException, SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + USER_DB);
+            statement.execute("CREATE DATABASE " + MEASUREMENT_DB);
+        }
+
+        DataSource userDb = postgres.getDatabase(DB_USER, USER_DB);
+        DataSource measurementDb = postgres.getDatabase(DB_USER, MEASUREMENT_DB);
+        runScript(userDb, backendDir.resolve("user/init.sql"));
+        runScript(measurementDb, backendDir.resolve("measurement/init.sql"));
+
+        List<String> emails = new ArrayList<>(users);
+        // Um único hash para todos: o custo do BCrypt fica no login medido, não na preparação
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        try (Connection connection = userDb.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO app.users(name, email, password, role, secret_phrase) VALUES (?, ?, ?, 'ADMIN', ?)")) {
+                for (int i = 0; i < users; i++) {
+                    String email = "loadtest-" + i + "@loadtest.local";
+                    emails.add(email);
+                    insert.setString(1, "Load Test " + i);
+                    insert.setString(2, email);
+                    insert.setString(3, passwordHash);
+                    insert.setString(4, passwordHash);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            seedPermissions(connection);
+            connection.commit();
+        }
+
+        long firstItemId;
+        long lastItemId;
+        try (Connection connection = measurementDb.getConnection()) {
+            connection.setAutoCommit(false);
+            seedPermissions(connection);
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO app.itens(name, unit) VALUES (?, ?)")) {
+                for (int i = 0; i < items; i++) {
+                    insert.setString(1, "Item de carga " + i);
+                    insert.setString(2, i % 2 == 0 ? "un" : "kg");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            try (Statement statement = connection.createStatement();
+                 ResultSet range = statement.executeQuery("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), 0) FROM app.itens")) {
+                range.next();
+                firstItemId = range.getLong(1);
+                lastItemId = range.getLong(2);
+            }
+        }
+
+        return new TestData(List.copyOf(emails), PASSWORD, firstItemId, lastItemId);
+    }
+
+    // Os dois serviços começam com a mesma matriz; o measurement a recebe pelo Kafka depois da primeira alteração
+    private static void seedPermissions(Connection connection) throws SQLException {
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO app.role_permissions(role, action, active) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (role, action) DO UPDATE SET active = EXCLUDED.active")) {
+            for (String role : ROLES) {
+                for (String action : ACTIONS) {
+                    upsert.setString(1, role);
+                    upsert.setString(2, action);
+                    upsert.setBoolean(3, role.equals("ADMIN") || action.startsWith("READ"));
+                    upsert.addBatch();
+                }
+            }
+            upsert.executeBatch();
+        }
+    }
+
+    private static void runScript(DataSource dataSource, Path script) throws IOException, SQLException {
+        String sql = Files.readString(script);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            kafka.destroy();
+        } finally {
+            postgres.close();
+        }
+    }
+}
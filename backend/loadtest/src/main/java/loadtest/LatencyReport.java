@@ -0,0 +1,134 @@
+package loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências por step em histogramas HDR (microssegundos), gravadas sem lock pelos usuários virtuais.
+ */
+final class LatencyReport {
+
+    // Até 60s com 3 dígitos significativos
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofSeconds(60).toNanos() / 1000;
+
+    private final Workload workload;
+    private final Map<String, StepStats> steps = new LinkedHashMap<>();
+    private volatile Duration measured = Duration.ZERO;
+
+    LatencyReport(Workload workload) {
+        this.workload = workload;
+        for (Workload.Step step : workload.steps()) {
+            steps.put(step.name(), new StepStats(step));
+        }
+    }
+
+    void record(Workload.Step step, long latencyNanos, boolean success) {
+        StepStats stats = steps.get(step.name());
+        stats.recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, latencyNanos / 1000)));
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Descarta o que foi gravado até aqui (aquecimento).
+     */
+    void reset() {
+        for (StepStats stats : steps.values()) {
+            // Troca o histograma ativo; o intervalo anterior é simplesmente descartado
+            stats.recorder.getIntervalHistogram();
+            stats.errors.reset();
+        }
+    }
+
+    void finish(Duration measured) {
+        this.measured = measured;
+        for (StepStats stats : steps.values()) {
+            stats.histogram = stats.recorder.getIntervalHistogram();
+        }
+    }
+
+    void print(PrintStream out) {
+        double seconds = Math.max(0.001, measured.toMillis() / 1000.0);
+        out.printf(Locale.ROOT, "%n== %s: %d usuários virtuais, %.1fs medidos ==%n",
+                workload.name(), workload.concurrency(), seconds);
+        out.printf(Locale.ROOT, "%-22s %9s %7s %9s %9s %9s %9s %9s%n",
+                "step", "reqs", "erros", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        for (StepStats stats : steps.values()) {
+            printLine(out, stats.step.name(), stats.histogram, stats.errors.sum(), seconds);
+            total.add(stats.histogram);
+            totalErrors += stats.errors.sum();
+        }
+        printLine(out, "TOTAL", total, totalErrors, seconds);
+    }
+
+    private static void printLine(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf(Locale.ROOT, "%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / seconds,
+                millis(histogram, 50),
+                millis(histogram, 99),
+                millis(histogram, 99.9),
+                histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Acrescenta uma linha por step ao CSV, escrevendo o cabeçalho se o arquivo ainda não existir.
+     */
+    void appendCsv(Path csv) throws IOException {
+        double seconds = Math.max(0.001, measured.toMillis() / 1000.0);
+        StringBuilder lines = new StringBuilder();
+        if (!Files.exists(csv)) {
+            lines.append("workload,step,method,path,concurrency,requests,errors,throughput,p50_ms,p99_ms,p999_ms,max_ms\n");
+        }
+        for (StepStats stats : steps.values()) {
+            Histogram histogram = stats.histogram;
+            lines.append(String.format(Locale.ROOT, "%s,%s,%s,\"%s\",%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n",
+                    workload.name(),
+                    stats.step.name(),
+                    stats.step.method(),
+                    stats.step.path(),
+                    workload.concurrency(),
+                    histogram.getTotalCount(),
+                    stats.errors.sum(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram, 50),
+                    millis(histogram, 99),
+                    millis(histogram, 99.9),
+                    histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1000.0));
+        }
+        Files.writeString(csv, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class StepStats {
+
+        private final Workload.Step step;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private Histogram histogram;
+
+        StepStats(Workload.Step step) {
+            this.step = step;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Teste de carga ponta a ponta: sobe Postgres e Kafka embutidos, inicia gateway, user e measurement a partir dos
+ * jars construídos e roda os roteiros pedidos pelo gateway, imprimindo as latências por endpoint.
+ * <p>
+ * Uso: {@code LoadTest [--backend-dir DIR] [--csv ARQUIVO] [--users N] [--items N] roteiro...}
+ * onde roteiro é o nome de um arquivo em workloads/ (login-storm, items-read-write, permission-churn)
+ * ou o caminho de um arquivo .workload.
+ */
+public class LoadTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    public static void main(String[] args) throws Exception {
+        Path backendDir = defaultBackendDir();
+        Path csv = null;
+        int users = 200;
+        int items = 5000;
+        List<Workload> workloads = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--backend-dir" -> backendDir = Path.of(args[++i]);
+                case "--csv" -> csv = Path.of(args[++i]);
+                case "--users" -> users = Integer.parseInt(args[++i]);
+                case "--items" -> items = Integer.parseInt(args[++i]);
+                default -> workloads.add(Workload.load(args[i]));
+            }
+        }
+        if (workloads.isEmpty()) {
+            for (String name : List.of("login-storm", "items-read-write", "permission-churn")) {
+                workloads.add(Workload.load(name));
+            }
+        }
+        backendDir = backendDir.toAbsolutePath().normalize();
+        Path logDir = backendDir.resolve("loadtest/target/loadtest-logs");
+
+        try (EmbeddedInfrastructure infrastructure = EmbeddedInfrastructure.start()) {
+            TestData data = infrastructure.seed(backendDir, users, items);
+            System.out.printf("Infraestrutura pronta: Postgres na porta %d, Kafka em %s, %d usuários e %d itens%n",
+                    infrastructure.postgresPort(), infrastructure.kafkaBootstrapServers(), users, items);
+
+            List<ServiceProcess> services = new ArrayList<>();
+            try {
+                URI gateway = startServices(backendDir, logDir, infrastructure, services);
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .build();
+                awaitReady(client, gateway, data);
+
+                WorkloadRunner runner = new WorkloadRunner(client, gateway, data);
+                for (Workload workload : workloads) {
+                    System.out.printf("%nExecutando %s (%ds de aquecimento, %ds medidos)...%n",
+                            workload.name(), workload.warmup().toSeconds(), workload.duration().toSeconds());
+                    LatencyReport report = runner.run(workload);
+                    report.print(System.out);
+                    if (csv != null) {
+                        report.appendCsv(csv);
+                    }
+                }
+            } finally {
+                for (ServiceProcess service : services.reversed()) {
+                    service.close();
+                }
+            }
+            System.out.println("\nLogs dos serviços em " + logDir);
+        }
+    }
+
+    /**
+     * Sobe os três serviços sem Eureka: as rotas do gateway apontam direto para as portas locais.
+     */
+    private static URI startServices(Path backendDir, Path logDir, EmbeddedInfrastructure infrastructure,
+                                     List<ServiceProcess> services) throws Exception {
+        // Os dois segredos são lidos como base64 pelos serviços
+        String jwtSecret = Base64.getEncoder().encodeToString("loadtest-jwt-secret-with-at-least-256-bits!!".getBytes());
+        String identitySecret = Base64.getEncoder().encodeToString("loadtest-identity-header-secret-256-bits".getBytes());
+        String kafka = infrastructure.kafkaBootstrapServers();
+
+        int userPort = ServiceProcess.freePort();
+        int measurementPort = ServiceProcess.freePort();
+        int gatewayPort = ServiceProcess.freePort();
+
+        ServiceProcess user = ServiceProcess.start("user",
+                backendDir.resolve("user/target/user-0.0.1-SNAPSHOT.jar"),
+                backendDir.resolve("user/src/main/resources/application.properties"),
+                userPort,
+                Map.ofEntries(
+                        Map.entry("USER_DB_HOST", "localhost"),
+                        Map.entry("USER_DB_PORT", String.valueOf(infrastructure.postgresPort())),
+                        Map.entry("USER_DB_NAME", EmbeddedInfrastructure.USER_DB),
+                        Map.entry("USER_DB_USERNAME", EmbeddedInfrastructure.DB_USER),
+                        Map.entry("USER_DB_PASSWORD", ""),
+                        Map.entry("GATEWAY_JWT_SECRET", jwtSecret),
+                        Map.entry("IDENTITY_HEADER_SECRET", identitySecret),
+                        Map.entry("KAFKA_BOOTSTRAP_SERVERS", kafka),
+                        Map.entry("KAFKA_CONSUMER_GROUP", "user-group"),
+                        Map.entry("USER_SERVICE_PORT", String.valueOf(userPort)),
+                        Map.entry("EUREKA_SERVER_URL", "http://localhost:8761/eureka/"),
+                        Map.entry("EUREKA_SERVER_IP", "127.0.0.1")),
+                List.of(),
+                logDir);
+        services.add(user);
+
+        ServiceProcess measurement = ServiceProcess.start("measurement",
+                backendDir.resolve("measurement/target/measurement-0.0.1-SNAPSHOT-exec.jar"),
+                backendDir.resolve("measurement/src/main/resources/application.properties"),
+                measurementPort,
+                Map.of("IDENTITY_HEADER_SECRET", identitySecret),
+                // O measurement tem a URL do banco fixa no application.properties
+                List.of("--spring.r2dbc.url=r2dbc:postgresql://localhost:" + infrastructure.postgresPort()
+                                + "/" + EmbeddedInfrastructure.MEASUREMENT_DB + "?schema=app",
+                        "--spring.r2dbc.username=" + EmbeddedInfrastructure.DB_USER,
+                        "--spring.r2dbc.password="),
+                logDir);
+        services.add(measurement);
+
+        ServiceProcess gateway = ServiceProcess.start("gateway",
+                backendDir.resolve("gateway/target/gateway-0.0.1-SNAPSHOT-exec.jar"),
+                backendDir.resolve("gateway/src/main/resources/application.properties"),
+                gatewayPort,
+                Map.ofEntries(
+                        Map.entry("SECRET", jwtSecret),
+                        Map.entry("IDENTITY_HEADER_SECRET", identitySecret),
+                        Map.entry("EXPOSE_PORT", String.valueOf(gatewayPort)),
+                        Map.entry("USER", "http://localhost:" + userPort),
+                        Map.entry("MEASUREMENT", "http://localhost:" + measurementPort),
+                        Map.entry("GATEWAY_URL", "http://localhost:" + gatewayPort),
+                        Map.entry("EUREKA_URL", "http://localhost:8761/eureka/"),
+                        Map.entry("IP", "127.0.0.1")),
+                List.of(),
+                logDir);
+        services.add(gateway);
+
+        for (ServiceProcess service : services) {
+            service.awaitPort(STARTUP_TIMEOUT);
+            System.out.printf("%s ouvindo na porta %d (log em %s)%n", service.name(), service.port(), service.log());
+        }
+        return URI.create("http://localhost:" + gatewayPort);
+    }
+
+    /**
+     * A porta aberta não basta: espera até um login e uma leitura de itens funcionarem de ponta a ponta,
+     * o que inclui a matriz de permissões do measurement já carregada pelo Kafka.
+     */
+    private static void awaitReady(HttpClient client, URI gateway, TestData data) throws Exception {
+        String body = "{\"email\":\"" + data.userEmails().get(0) + "\",\"password\":\"" + data.password() + "\"}";
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        String lastStatus = "sem resposta";
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<String> login = client.send(HttpRequest.newBuilder(gateway.resolve("/api/users/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                lastStatus = "login " + login.statusCode();
+                if (login.statusCode() == 200) {
+                    HttpResponse<Void> items = client.send(HttpRequest.newBuilder(gateway.resolve("/api/itens?limit=1"))
+                            .header("Authorization", "Bearer " + login.body().strip())
+                            .build(), HttpResponse.BodyHandlers.discarding());
+                    lastStatus = "itens " + items.statusCode();
+                    if (items.statusCode() == 200) {
+                        return;
+                    }
+                }
+            } catch (java.io.IOException e) {
+                lastStatus = e.toString();
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Serviços não ficaram prontos em " + STARTUP_TIMEOUT.toSeconds() + "s: " + lastStatus);
+    }
+
+    // Funciona tanto rodando de backend/ quanto de backend/loadtest/
+    private static Path defaultBackendDir() {
+        if (Files.isRegularFile(Path.of("gateway/pom.xml"))) {
+            return Path.of(".");
+        }
+        return Path.of("..");
+    }
+}
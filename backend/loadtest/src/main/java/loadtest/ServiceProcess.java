@@ -0,0 +1,129 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um serviço (gateway, user, measurement) rodando em um processo próprio a partir do jar já construído.
+ * A saída vai para um arquivo de log em target/loadtest-logs.
+ */
+final class ServiceProcess implements AutoCloseable {
+
+    private final String name;
+    private final Process process;
+    private final Path log;
+    private final int port;
+
+    private ServiceProcess(String name, Process process, Path log, int port) {
+        this.name = name;
+        this.process = process;
+        this.log = log;
+        this.port = port;
+    }
+
+    /**
+     * Sobe o jar com o ambiente e os argumentos dados. Os níveis de log definidos no application.properties do
+     * serviço são rebaixados para WARN: logs DEBUG a cada requisição distorceriam as latências.
+     */
+    static ServiceProcess start(String name, Path jar, Path applicationProperties, int port,
+                                Map<String, String> environment, List<String> arguments, Path logDir) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Jar não encontrado: " + jar + " (rode mvn install -DskipTests em backend/)");
+        }
+        Files.createDirectories(logDir);
+        Path log = logDir.resolve(name + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx512m");
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--eureka.client.enabled=false");
+        command.add("--logging.level.root=WARN");
+        for (String logger : configuredLoggers(applicationProperties)) {
+            command.add("--" + logger + "=WARN");
+        }
+        command.addAll(arguments);
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        builder.environment().putAll(environment);
+        return new ServiceProcess(name, builder.start(), log, port);
+    }
+
+    private static List<String> configuredLoggers(Path applicationProperties) throws IOException {
+        Properties properties = new Properties();
+        try (var reader = Files.newBufferedReader(applicationProperties)) {
+            properties.load(reader);
+        }
+        return properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith("logging.level.") && !key.equals("logging.level.root"))
+                .sorted()
+                .toList();
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Espera a porta HTTP do serviço aceitar conexões.
+     */
+    void awaitPort(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " terminou durante a inicialização (código " + process.exitValue() + "), veja " + log);
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 500);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException(name + " não abriu a porta " + port + " em " + timeout.toSeconds() + "s, veja " + log);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int port() {
+        return port;
+    }
+
+    Path log() {
+        return log;
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(15, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
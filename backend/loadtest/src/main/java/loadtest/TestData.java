@@ -0,0 +1,9 @@
+package loadtest;
+
+import java.util.List;
+
+/**
+ * Dados inseridos antes da carga e usados nos templates das requisições.
+ */
+record TestData(List<String> userEmails, String password, long firstItemId, long lastItemId) {
+}
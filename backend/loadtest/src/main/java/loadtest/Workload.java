@@ -0,0 +1,151 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Roteiro de carga lido de um arquivo .workload:
+ * <pre>
+ * # comentário
+ * concurrency 64
+ * warmup 5s
+ * duration 30s
+ * step listar 8 GET /api/itens?limit=50 auth
+ * step criar 1 POST /api/itens auth expect=201,409 {"name":"carga-${seq}","unit":"un"}
+ * </pre>
+ * Cada usuário virtual sorteia o próximo passo pelo peso. "auth" envia o token obtido no login do usuário virtual,
+ * "none" envia a requisição sem token. Sem "expect", qualquer status abaixo de 400 conta como sucesso.
+ */
+record Workload(String name, int concurrency, Duration warmup, Duration duration, List<Step> steps) {
+
+    record Step(String name, int weight, String method, String path, boolean authenticated, Set<Integer> expected,
+                String body) {
+
+        boolean succeeded(int status) {
+            return expected.isEmpty() ? status < 400 : expected.contains(status);
+        }
+    }
+
+    boolean needsToken() {
+        return steps.stream().anyMatch(Step::authenticated);
+    }
+
+    /**
+     * Procura o roteiro primeiro como arquivo e depois entre os embutidos em workloads/ no classpath.
+     */
+    static Workload load(String nameOrPath) throws IOException {
+        Path path = Path.of(nameOrPath);
+        if (Files.isRegularFile(path)) {
+            String fileName = path.getFileName().toString();
+            return parse(fileName.replaceFirst("\\.workload$", ""), Files.readString(path));
+        }
+        try (InputStream in = Workload.class.getResourceAsStream("/workloads/" + nameOrPath + ".workload")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Roteiro não encontrado: " + nameOrPath);
+            }
+            return parse(nameOrPath, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    static Workload parse(String name, String script) {
+        int concurrency = 16;
+        Duration warmup = Duration.ofSeconds(5);
+        Duration duration = Duration.ofSeconds(30);
+        List<Step> steps = new ArrayList<>();
+
+        String[] lines = script.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Tokens tokens = new Tokens(line, name + ":" + (i + 1));
+            String directive = tokens.next();
+            switch (directive) {
+                case "concurrency" -> concurrency = Integer.parseInt(tokens.next());
+                case "warmup" -> warmup = parseDuration(tokens.next());
+                case "duration" -> duration = parseDuration(tokens.next());
+                case "step" -> steps.add(parseStep(tokens));
+                default -> throw new IllegalArgumentException(tokens.where + ": diretiva desconhecida '" + directive + "'");
+            }
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException(name + ": nenhum step definido");
+        }
+        return new Workload(name, concurrency, warmup, duration, List.copyOf(steps));
+    }
+
+    private static Step parseStep(Tokens tokens) {
+        String stepName = tokens.next();
+        int weight = Integer.parseInt(tokens.next());
+        String method = tokens.next().toUpperCase();
+        String path = tokens.next();
+        String auth = tokens.next();
+        if (!auth.equals("auth") && !auth.equals("none")) {
+            throw new IllegalArgumentException(tokens.where + ": esperado 'auth' ou 'none', encontrado '" + auth + "'");
+        }
+
+        Set<Integer> expected = Set.of();
+        String rest = tokens.rest();
+        if (rest.startsWith("expect=")) {
+            int end = rest.indexOf(' ');
+            String codes = end < 0 ? rest.substring(7) : rest.substring(7, end);
+            expected = Set.copyOf(List.of(codes.split(",")).stream().map(Integer::valueOf).toList());
+            rest = end < 0 ? "" : rest.substring(end + 1).strip();
+        }
+        return new Step(stepName, weight, method, path, auth.equals("auth"), expected, rest.isEmpty() ? null : rest);
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    /**
+     * Separa a linha em palavras, mantendo o restante intacto para o corpo JSON (que pode conter espaços).
+     */
+    private static final class Tokens {
+
+        private final String line;
+        private final String where;
+        private int position;
+
+        Tokens(String line, String where) {
+            this.line = line;
+            this.where = where;
+        }
+
+        String next() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            int start = position;
+            while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException(where + ": linha incompleta");
+            }
+            return line.substring(start, position);
+        }
+
+        String rest() {
+            return line.substring(position).strip();
+        }
+    }
+}
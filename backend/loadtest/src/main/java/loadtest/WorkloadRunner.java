@@ -0,0 +1,197 @@
+package loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executa um roteiro contra o gateway em modelo fechado: cada usuário virtual é uma thread virtual que envia a
+ * próxima requisição assim que recebe a resposta da anterior.
+ */
+final class WorkloadRunner {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Roles sem usuários de teste: o permission-churn as altera sem afetar quem está gerando carga
+    private static final String[] CHURN_ROLES = {"TECHNICIAN", "ENGINEER", "COORDINATOR"};
+    private static final String[] ITEM_ACTIONS = {"CREATE_ITEM", "READ_ITEM", "DELETE_ITEM"};
+
+    private final HttpClient client;
+    private final URI gateway;
+    private final TestData data;
+    private final AtomicLong sequence = new AtomicLong();
+
+    WorkloadRunner(HttpClient client, URI gateway, TestData data) {
+        this.client = client;
+        this.gateway = gateway;
+        this.data = data;
+    }
+
+    LatencyReport run(Workload workload) throws InterruptedException {
+        LatencyReport report = new LatencyReport(workload);
+        int[] cumulativeWeights = cumulativeWeights(workload.steps());
+        LongAdder loginFailures = new LongAdder();
+
+        long start = System.nanoTime();
+        long measureFrom = start + workload.warmup().toNanos();
+        long end = measureFrom + workload.duration().toNanos();
+
+        List<Thread> virtualUsers = new ArrayList<>(workload.concurrency());
+        for (int i = 0; i < workload.concurrency(); i++) {
+            String email = data.userEmails().get(i % data.userEmails().size());
+            virtualUsers.add(Thread.ofVirtual().name("vu-" + i).start(() -> {
+                String token = null;
+                if (workload.needsToken()) {
+                    token = login(email);
+                    if (token == null) {
+                        loginFailures.increment();
+                        return;
+                    }
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    Workload.Step step = pick(workload.steps(), cumulativeWeights, random);
+                    execute(step, token, report);
+                }
+            }));
+        }
+
+        Thread.sleep(workload.warmup().toMillis());
+        report.reset();
+        for (Thread virtualUser : virtualUsers) {
+            virtualUser.join();
+        }
+        report.finish(Duration.ofNanos(Math.max(0, System.nanoTime() - measureFrom)));
+
+        if (loginFailures.sum() > 0) {
+            System.err.printf("%s: %d usuários virtuais não conseguiram fazer login e ficaram de fora%n",
+                    workload.name(), loginFailures.sum());
+        }
+        return report;
+    }
+
+    private void execute(Workload.Step step, String token, LatencyReport report) {
+        HttpRequest request = buildRequest(step, token);
+        long begin = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            success = step.succeeded(response.statusCode());
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        report.record(step, System.nanoTime() - begin, success);
+    }
+
+    private HttpRequest buildRequest(Workload.Step step, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(gateway.resolve(render(step.path())))
+                .timeout(REQUEST_TIMEOUT);
+        if (token != null && step.authenticated()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (step.body() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(step.method(), HttpRequest.BodyPublishers.ofString(render(step.body())));
+        } else {
+            builder.method(step.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Autentica o usuário virtual pelo gateway; o token é reaproveitado durante toda a execução.
+     */
+    private String login(String email) {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + data.password() + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(gateway.resolve("/api/users/login"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        for (int attempt = 0; attempt < 5; attempt++) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    return response.body().strip();
+                }
+                // 503 quando o pool de BCrypt está cheio: espera um pouco e tenta de novo
+                Thread.sleep(200L * (attempt + 1));
+            } catch (IOException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Substitui as variáveis do roteiro: ${user}, ${password}, ${itemId}, ${seq}, ${random}, ${bool}, ${role}, ${action}.
+     */
+    String render(String template) {
+        if (template.indexOf('$') < 0) {
+            return template;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder out = new StringBuilder(template.length() + 16);
+        int position = 0;
+        while (position < template.length()) {
+            int start = template.indexOf("${", position);
+            if (start < 0) {
+                out.append(template, position, template.length());
+                break;
+            }
+            int end = template.indexOf('}', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Variável sem '}' em: " + template);
+            }
+            out.append(template, position, start);
+            String variable = template.substring(start + 2, end);
+            out.append(switch (variable) {
+                case "user" -> data.userEmails().get(random.nextInt(data.userEmails().size()));
+                case "password" -> data.password();
+                case "itemId" -> String.valueOf(random.nextLong(data.firstItemId(), data.lastItemId() + 1));
+                case "seq" -> String.valueOf(sequence.incrementAndGet());
+                case "random" -> String.valueOf(random.nextInt(1_000_000));
+                case "bool" -> String.valueOf(random.nextBoolean());
+                case "role" -> CHURN_ROLES[random.nextInt(CHURN_ROLES.length)];
+                case "action" -> ITEM_ACTIONS[random.nextInt(ITEM_ACTIONS.length)];
+                default -> throw new IllegalArgumentException("Variável desconhecida ${" + variable + "}");
+            });
+            position = end + 1;
+        }
+        return out.toString();
+    }
+
+    private static int[] cumulativeWeights(List<Workload.Step> steps) {
+        int[] cumulative = new int[steps.size()];
+        int sum = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            sum += steps.get(i).weight();
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private static Workload.Step pick(List<Workload.Step> steps, int[] cumulativeWeights, ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return steps.get(i);
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+}
@@ -2,12 +2,70 @@ CREATE SCHEMA IF NOT EXISTS app;
 
 SET search_path TO app, public;
 
+-- revision: id da transação que gravou a linha (xid8, crescente). O feed GET api/itens/changes só entrega
+-- revisões abaixo do xmin do snapshot, então uma transação ainda aberta nunca é ultrapassada por uma mais nova
 CREATE TABLE IF NOT EXISTS itens (
     id       SERIAL PRIMARY KEY,
     name VARCHAR(50),
-    unit VARCHAR(50)
+    unit VARCHAR(50),
+    revision BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint),
+    UNIQUE(name, unit)
 );
 
+-- Migração de bancos criados antes da coluna revision. O docker-entrypoint só executa este script num volume
+-- vazio; num banco existente ele deve ser executado à mão (psql -f init.sql), e todos os comandos abaixo são
+-- idempotentes. As linhas existentes recebem o id da transação do ALTER, uma única revisão, e a tabela é
+-- reescrita por causa do DEFAULT volátil.
+ALTER TABLE itens ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint);
+
+CREATE INDEX IF NOT EXISTS itens_revision_idx ON itens (revision);
+
+-- Itens removidos, para que o feed de alterações também entregue as remoções
+CREATE TABLE IF NOT EXISTS item_tombstones (
+    item_id BIGINT PRIMARY KEY,
+    revision BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint)
+);
+
+CREATE INDEX IF NOT EXISTS item_tombstones_revision_idx ON item_tombstones (revision);
+
+-- Migração de bancos criados antes da unicidade de (name, unit), exigida pelo ON CONFLICT da importação e da
+-- criação de itens. Das linhas repetidas fica a de menor id; as demais são removidas com lápide, para que o
+-- feed de alterações também as entregue. Num banco novo o índice já existe com esse nome (UNIQUE acima).
+WITH duplicates AS (
+    DELETE FROM itens a USING itens b
+    WHERE a.name = b.name AND a.unit = b.unit AND a.id > b.id
+    RETURNING a.id
+)
+INSERT INTO item_tombstones (item_id) SELECT DISTINCT id FROM duplicates;
+
+CREATE UNIQUE INDEX IF NOT EXISTS itens_name_unit_key ON itens (name, unit);
+
+-- Avisa no canal item_changes cada comando que criou ou removeu itens, com a revisão (id da transação); entregue
+-- pelo Postgres só no commit, e avisos iguais da mesma transação chegam uma vez só. Uma importação em lote gera um
+-- aviso, não um por linha: quem recebe busca as linhas no feed GET api/itens/changes.
+-- O measurement escuta o canal com uma conexão e repassa para o SSE de GET api/itens/events
+CREATE OR REPLACE FUNCTION notify_item_change() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM changed) THEN
+        PERFORM pg_notify('item_changes', pg_current_xact_id()::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Substitui o trigger por linha das versões anteriores
+DROP TRIGGER IF EXISTS itens_notify_change ON itens;
+
+CREATE OR REPLACE TRIGGER itens_notify_insert
+    AFTER INSERT ON itens
+    REFERENCING NEW TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_item_change();
+
+CREATE OR REPLACE TRIGGER itens_notify_delete
+    AFTER DELETE ON itens
+    REFERENCING OLD TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_item_change();
+
 CREATE TABLE IF NOT EXISTS role_permissions (
     id SERIAL PRIMARY KEY,
     role VARCHAR(255) NOT NULL,
@@ -19,5 +77,9 @@ CREATE TABLE IF NOT EXISTS role_permissions (
 CREATE TABLE IF NOT EXISTS kafka_status (
     id SERIAL PRIMARY KEY,
     permissions_loaded BOOLEAN NOT NULL DEFAULT FALSE,
-    sync_in_progress BOOLEAN NOT NULL DEFAULT FALSE
+    sync_in_progress BOOLEAN NOT NULL DEFAULT FALSE,
+    permissions_version BIGINT NOT NULL DEFAULT 0
 );
+
+-- Migração de bancos criados antes da versão dos snapshots de permissão (idempotente, ver itens acima)
+ALTER TABLE kafka_status ADD COLUMN IF NOT EXISTS permissions_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,164 @@
+package config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import dto.ItemDTO;
+import dto.ItemPageDTO;
+import model.Item;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializa itens (Item, Item[], ItemDTO e ItemPageDTO) em JSON ou NDJSON direto no DataBuffer da resposta,
+ * com o gerador de streaming do Jackson: sem introspecção de bean por requisição, sem byte[] ou String
+ * intermediários e sem os campos nulos. Registrado antes do encoder Jackson padrão (ver WebFluxCodecConfig),
+ * que continua atendendo os demais tipos.
+ */
+public class ItemJsonEncoder implements Encoder<Object> {
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON);
+
+    // Estimativa inicial por item; o buffer cresce sozinho se não bastar
+    private static final int BYTES_PER_ITEM = 64;
+
+    private static final byte[] NONE = {};
+    private static final byte[] NEWLINE = {'\n'};
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] ARRAY_END = {']'};
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        Class<?> type = elementType.toClass();
+        boolean supported = type == Item.class || type == Item[].class || type == ItemDTO.class || type == ItemPageDTO.class;
+        return supported && (mimeType == null || MIME_TYPES.stream().anyMatch(m -> m.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        if (isNdjson(mimeType)) {
+            return Flux.from(inputStream).map(value -> write(value, bufferFactory, NONE, NEWLINE));
+        }
+        // Flux em application/json vira um único array, escrito à medida que os elementos chegam
+        return Flux.from(inputStream)
+                .index()
+                .map(indexed -> write(indexed.getT2(), bufferFactory, indexed.getT1() == 0 ? ARRAY_START : SEPARATOR, NONE))
+                .switchIfEmpty(Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_START.clone())))
+                .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_END.clone())));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return write(value, bufferFactory, NONE, isNdjson(mimeType) ? NEWLINE : NONE);
+    }
+
+    private static boolean isNdjson(MimeType mimeType) {
+        return mimeType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(mimeType);
+    }
+
+    private static DataBuffer write(Object value, DataBufferFactory bufferFactory, byte[] prefix, byte[] suffix) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateSize(value));
+        boolean release = true;
+        try {
+            buffer.write(prefix);
+            try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+                writeValue(generator, value);
+            }
+            buffer.write(suffix);
+            release = false;
+            return buffer;
+        } catch (IOException e) {
+            throw new EncodingException("Falha ao serializar " + value.getClass().getSimpleName(), e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+    private static int estimateSize(Object value) {
+        if (value instanceof Item[] itens) {
+            return 2 + itens.length * BYTES_PER_ITEM;
+        }
+        if (value instanceof ItemPageDTO page) {
+            return 32 + page.getItens().size() * BYTES_PER_ITEM;
+        }
+        return BYTES_PER_ITEM;
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof Item item) {
+            writeItem(generator, item);
+        } else if (value instanceof Item[] itens) {
+            writeItems(generator, Arrays.asList(itens));
+        } else if (value instanceof ItemPageDTO page) {
+            generator.writeStartObject();
+            generator.writeFieldName("itens");
+            writeItems(generator, page.getItens());
+            if (page.getNext() != null) {
+                generator.writeNumberField("next", page.getNext());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof ItemDTO dto) {
+            generator.writeStartObject();
+            writeStringField(generator, "name", dto.getName());
+            writeStringField(generator, "unit", dto.getUnit());
+            generator.writeEndObject();
+        } else {
+            throw new EncodingException("Tipo não suportado: " + value.getClass().getName());
+        }
+    }
+
+    private static void writeItems(JsonGenerator generator, List<Item> itens) throws IOException {
+        generator.writeStartArray();
+        for (Item item : itens) {
+            writeItem(generator, item);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeItem(JsonGenerator generator, Item item) throws IOException {
+        generator.writeStartObject();
+        if (item.getId() != null) {
+            generator.writeNumberField("id", item.getId());
+        }
+        writeStringField(generator, "name", item.getName());
+        writeStringField(generator, "unit", item.getUnit());
+        generator.writeEndObject();
+    }
+
+    private static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class WebFluxCodecConfig implements WebFluxConfigurer {
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // Só aceita tipos de item (não Object), então entra entre os codecs tipados, antes do Jackson
+        configurer.customCodecs().register(new ItemJsonEncoder());
+    }
+}
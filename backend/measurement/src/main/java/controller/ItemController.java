@@ -2,11 +2,16 @@ package controller;
 
 import dto.ItemDTO;
 import dto.ItemRequestDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import service.ItemService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/itens")
 public class ItemController {
@@ -23,18 +28,57 @@ public class ItemController {
         return itemService.createItem(itemDTO, token);
     }
 
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<?>> importItens(@RequestBody Flux<ItemDTO> itens, @RequestHeader("Authorization") String token) {
+        return itemService.importItens(itens, token);
+    }
+
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<String>> deleteItem(@PathVariable Long id, @RequestHeader("Authorization") String token) {
         return itemService.deleteItem(id, token);
     }
 
     @GetMapping
-    public Mono<ResponseEntity<?>> getAllItens(@RequestHeader("Authorization") String token) {
-        return itemService.getAllItens(token);
+    public Mono<ResponseEntity<?>> getAllItens(@RequestParam(value = "after", required = false) Long after,
+                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                               @RequestHeader("Authorization") String token,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (after != null || limit != null) {
+            return itemService.getItemPage(after, limit, token, ifNoneMatch);
+        }
+        return itemService.getAllItens(token, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<?>> streamAllItens(@RequestHeader("Authorization") String token,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return itemService.streamAllItens(token, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<?>> getChanges(@RequestParam(value = "since", required = false) Long since,
+                                              @RequestParam(value = "limit", required = false) Integer limit,
+                                              @RequestHeader("Authorization") String token) {
+        return itemService.getChanges(since, limit, token);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<?>> streamChanges(@RequestHeader("Authorization") String token) {
+        return itemService.streamChanges(token);
+    }
+
+    @GetMapping("/batch")
+    public Mono<ResponseEntity<?>> getItens(@RequestParam("ids") List<Long> ids,
+                                            @RequestHeader("Authorization") String token,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return itemService.getItens(ids, token, ifNoneMatch);
     }
 
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<?>> getItem(@PathVariable Long id, @RequestHeader("Authorization") String token) {
-        return itemService.getItem(id, token);
+    public Mono<ResponseEntity<?>> getItem(@PathVariable Long id, @RequestHeader("Authorization") String token,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return itemService.getItem(id, token, ifNoneMatch);
     }
 }
@@ -0,0 +1,32 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+
+/**
+ * Uma linha do feed GET api/itens/changes: o estado atual de um item criado depois de "since",
+ * ou a remoção dele (deleted, sem name e unit).
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemChangeDTO {
+
+    private final long revision;
+
+    private final Long id;
+
+    private final String name;
+
+    private final String unit;
+
+    private final boolean deleted;
+
+    public ItemChangeDTO(long revision, Long id, String name, String unit, boolean deleted) {
+        this.revision = revision;
+        this.id = id;
+        this.name = name;
+        this.unit = unit;
+        this.deleted = deleted;
+    }
+}
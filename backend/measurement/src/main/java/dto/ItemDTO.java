@@ -1,9 +1,11 @@
 package dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ItemDTO {
 
     @Getter
@@ -0,0 +1,38 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemImportBatchDTO {
+
+    private final long batch;
+
+    private final int received;
+
+    private final long inserted;
+
+    // Itens que já existiam no catálogo (mesmo name e unit)
+    private final long duplicates;
+
+    // Itens descartados por não terem name ou unit, ou por excederem o tamanho da coluna
+    private final int rejected;
+
+    // Motivo da falha do INSERT do lote; nesse caso nenhum item do lote foi gravado
+    private final String error;
+
+    public ItemImportBatchDTO(long batch, int received, long inserted, long duplicates, int rejected) {
+        this(batch, received, inserted, duplicates, rejected, null);
+    }
+
+    public ItemImportBatchDTO(long batch, int received, long inserted, long duplicates, int rejected, String error) {
+        this.batch = batch;
+        this.received = received;
+        this.inserted = inserted;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.error = error;
+    }
+}
@@ -0,0 +1,28 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+
+/**
+ * Resultado de um id pedido em GET api/itens/batch: o item encontrado, ou só o id com found=false.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemLookupDTO {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String unit;
+
+    private final boolean found;
+
+    public ItemLookupDTO(Long id, String name, String unit, boolean found) {
+        this.id = id;
+        this.name = name;
+        this.unit = unit;
+        this.found = found;
+    }
+}
@@ -0,0 +1,23 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import model.Item;
+
+import java.util.List;
+
+
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemPageDTO {
+
+    private final List<Item> itens;
+
+    // Cursor para ?after= da próxima página; omitido quando não há mais itens
+    private final Long next;
+
+    public ItemPageDTO(List<Item> itens, Long next) {
+        this.itens = itens;
+        this.next = next;
+    }
+}
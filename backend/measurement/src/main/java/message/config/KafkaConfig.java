@@ -1,25 +1,45 @@
 package message.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import message.dto.CacheInvalidationDTO;
 import message.dto.PermissionEventDTO;
+import message.dto.PermissionSnapshotDTO;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.kafka.annotation.EnableKafka;
-import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
-@EnableKafka
 public class KafkaConfig {
 
+    public static final String CACHE_INVALIDATION_TOPIC = "cache-invalidation";
+
+    /**
+     * Identifica esta réplica: dá nome ao seu grupo de consumo de invalidações e marca a origem das que ela publica.
+     */
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
     public ProducerFactory<String, PermissionEventDTO> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -31,21 +51,63 @@ public class KafkaConfig {
 
     @Bean
     public KafkaTemplate<String, PermissionEventDTO> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        return instrumentedTemplate(producerFactory());
+    }
+
+    /**
+     * Eventos são processados em paralelo por chave (role:action), então os offsets podem ser confirmados fora
+     * de ordem; o reactor-kafka segura o commit até que todos os offsets anteriores tenham sido confirmados.
+     */
+    @Bean
+    public ReceiverOptions<String, PermissionEventDTO> permissionUpdateReceiverOptions(
+            @Value("${measurement.kafka.permissions-update.max-deferred-commits:1000}") int maxDeferredCommits) {
+        return this.<PermissionEventDTO>receiverOptions("measurement-group", "permissions-update", "message.dto.PermissionEventDTO")
+                .maxDeferredCommits(maxDeferredCommits);
+    }
+
+    @Bean
+    public ReceiverOptions<String, PermissionSnapshotDTO> permissionSnapshotReceiverOptions() {
+        return receiverOptions("client-group", "permissions-response", "message.dto.PermissionSnapshotDTO");
     }
+
+    /**
+     * Cada réplica consome todas as invalidações com um grupo próprio. Começa do fim do tópico:
+     * uma réplica nova carrega a matriz inteira ao subir e não precisa do histórico.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, PermissionEventDTO> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, PermissionEventDTO> factory =
-                new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
-        return factory;
+    public ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions() {
+        return this.<CacheInvalidationDTO>receiverOptions(CACHE_INVALIDATION_TOPIC + "-measurement-" + INSTANCE_ID,
+                        CACHE_INVALIDATION_TOPIC, "message.dto.CacheInvalidationDTO")
+                .consumerProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
     }
 
     @Bean
-    public ConsumerFactory<String, PermissionEventDTO> consumerFactory() {
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(CACHE_INVALIDATION_TOPIC)
+                .partitions(1)
+                .config("retention.ms", "3600000")
+                .build();
+    }
+
+    @Bean
+    public KafkaTemplate<String, CacheInvalidationDTO> cacheInvalidationKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:29092");
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, org.springframework.kafka.support.serializer.JsonSerializer.class);
+        return instrumentedTemplate(new DefaultKafkaProducerFactory<>(configProps));
+    }
+
+    /**
+     * Opções dos consumidores reativos: offsets só são confirmados depois que o registro foi processado
+     * (acknowledge) e enviados ao broker em lote a cada segundo.
+     */
+    private <V> ReceiverOptions<String, V> receiverOptions(String groupId, String topic, String valueType) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:29092");
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "permissions-group");
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
 
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
@@ -54,9 +116,13 @@ public class KafkaConfig {
         configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
 
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "message.dto.PermissionEventDTO");
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, valueType);
 
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return ReceiverOptions.<String, V>create(configProps)
+                .commitInterval(Duration.ofSeconds(1))
+                .commitBatchSize(100)
+                .subscription(Collections.singleton(topic));
     }
 
     @Bean
@@ -70,8 +136,15 @@ public class KafkaConfig {
 
     @Bean
     public KafkaTemplate<String, String> stringKafkaTemplate() {
-        return new KafkaTemplate<>(stringProducerFactory());
+        return instrumentedTemplate(stringProducerFactory());
     }
 
-
+    /**
+     * Liga as métricas nativas do produtor (kafka.producer.*: envios, erros, retentativas). O tempo até o ack
+     * de cada envio já é medido pelo próprio KafkaTemplate (spring.kafka.template, tag "name" = bean do template).
+     */
+    private <V> KafkaTemplate<String, V> instrumentedTemplate(ProducerFactory<String, V> producerFactory) {
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new KafkaTemplate<>(producerFactory);
+    }
 }
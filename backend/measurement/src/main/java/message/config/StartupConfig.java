@@ -2,20 +2,30 @@ package message.config;
 
 import message.model.KafkaStatus;
 import message.repository.KafkaStatusRepository;
+import message.service.PermissionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
 
 @Configuration
 public class StartupConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
     @Bean
-    CommandLineRunner initSyncStatus(KafkaStatusRepository repository) {
+    CommandLineRunner initSyncStatus(KafkaStatusRepository repository, PermissionService permissionService) {
         return args -> repository.findFirstByOrderByIdAsc()
                 .switchIfEmpty(repository.save(new KafkaStatus()))
+                // Permissões já sincronizadas antes do restart: aquece a matriz em memória a partir do banco
+                .flatMap(status -> status.isPermissionsLoaded()
+                        ? permissionService.reloadPermissionMatrix().thenReturn(status)
+                        : Mono.just(status))
                 .subscribe(
-                        s -> System.out.println("🟢 Status de sincronização inicializado"),
-                        e -> System.err.println("🔴 Falha na inicialização do status: " + e)
+                        s -> log.info("Status de sincronização inicializado"),
+                        e -> log.error("Falha na inicialização do status", e)
                 );
     }
 }
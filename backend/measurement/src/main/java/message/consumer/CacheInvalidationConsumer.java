@@ -0,0 +1,76 @@
+package message.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import message.config.KafkaConfig;
+import message.dto.CacheInvalidationDTO;
+import message.service.PermissionService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOptions;
+import service.CatalogueRevision;
+
+/**
+ * Mantém a matriz de permissões desta réplica em dia com as alterações aplicadas por outras réplicas:
+ * permissions-update e permissions-response são consumidos por um único membro do grupo.
+ * Também avança a revisão do catálogo (ETags dos itens) quando outra réplica altera itens.
+ */
+@Component
+public class CacheInvalidationConsumer {
+
+    private final PermissionService permissionService;
+    private final CatalogueRevision catalogueRevision;
+    private final ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions;
+    private final MeterRegistry meterRegistry;
+
+    private Disposable pipeline;
+
+    public CacheInvalidationConsumer(PermissionService permissionService, CatalogueRevision catalogueRevision,
+                                     ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions,
+                                     MeterRegistry meterRegistry) {
+        this.permissionService = permissionService;
+        this.catalogueRevision = catalogueRevision;
+        this.cacheInvalidationReceiverOptions = cacheInvalidationReceiverOptions;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pipeline = ReactiveConsumerPipeline.start(KafkaConfig.CACHE_INVALIDATION_TOPIC, cacheInvalidationReceiverOptions, meterRegistry, this::handleInvalidation);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    public Mono<Void> handleInvalidation(CacheInvalidationDTO invalidation) {
+        // A réplica de origem já atualizou a própria matriz e a própria revisão
+        if (KafkaConfig.INSTANCE_ID.equals(invalidation.getOrigin())) {
+            return Mono.empty();
+        }
+        if (invalidation.isCatalogue()) {
+            catalogueRevision.advance();
+        }
+        if (invalidation.getPermissions() == null || invalidation.getPermissions().isEmpty()) {
+            return Mono.empty();
+        }
+        if (invalidation.getPermissions().contains(CacheInvalidationDTO.ALL_PERMISSIONS)) {
+            return permissionService.reloadPermissionMatrix();
+        }
+        return Flux.fromIterable(invalidation.getPermissions())
+                .concatMap(key -> {
+                    int separator = key.indexOf(':');
+                    return separator < 0
+                            ? Mono.empty()
+                            : permissionService.refreshPermission(key.substring(0, separator), key.substring(separator + 1));
+                })
+                .then();
+    }
+}
@@ -1,32 +1,77 @@
 package message.consumer;
 
 import message.dto.PermissionEventDTO;
+import message.dto.PermissionSnapshotDTO;
 import message.model.KafkaStatus;
+import message.producer.CacheInvalidationProducer;
 import message.producer.PermissionRequestProducer;
 import message.repository.KafkaStatusRepository;
 import message.service.PermissionService;
-import org.springframework.kafka.annotation.KafkaListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Mono;
-
-import java.util.List;
+import reactor.kafka.receiver.ReceiverOptions;
 
 @Component
 public class PermissionConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionConsumer.class);
+
     private final PermissionService permissionService;
     private final KafkaStatusRepository kafkaStatusRepository;
     private final PermissionRequestProducer permissionRequestProducer;
+    private final CacheInvalidationProducer cacheInvalidationProducer;
+    private final TransactionalOperator transactionalOperator;
+    private final ReceiverOptions<String, PermissionEventDTO> permissionUpdateReceiverOptions;
+    private final ReceiverOptions<String, PermissionSnapshotDTO> permissionSnapshotReceiverOptions;
+    private final MeterRegistry meterRegistry;
+
+    private final int permissionUpdateConcurrency;
 
-    public PermissionConsumer(PermissionService permissionService, KafkaStatusRepository kafkaStatusRepository, PermissionRequestProducer permissionRequestProducer) {
+    private Disposable pipelines;
+
+    public PermissionConsumer(PermissionService permissionService, KafkaStatusRepository kafkaStatusRepository, PermissionRequestProducer permissionRequestProducer,
+                              CacheInvalidationProducer cacheInvalidationProducer, TransactionalOperator transactionalOperator,
+                              ReceiverOptions<String, PermissionEventDTO> permissionUpdateReceiverOptions,
+                              ReceiverOptions<String, PermissionSnapshotDTO> permissionSnapshotReceiverOptions,
+                              MeterRegistry meterRegistry,
+                              @Value("${measurement.kafka.permissions-update.concurrency:4}") int permissionUpdateConcurrency) {
         this.permissionService = permissionService;
         this.kafkaStatusRepository = kafkaStatusRepository;
         this.permissionRequestProducer = permissionRequestProducer;
+        this.cacheInvalidationProducer = cacheInvalidationProducer;
+        this.transactionalOperator = transactionalOperator;
+        this.permissionUpdateReceiverOptions = permissionUpdateReceiverOptions;
+        this.permissionSnapshotReceiverOptions = permissionSnapshotReceiverOptions;
+        this.meterRegistry = meterRegistry;
+        this.permissionUpdateConcurrency = permissionUpdateConcurrency;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pipelines = Disposables.composite(
+                ReactiveConsumerPipeline.start("permissions-update", permissionUpdateReceiverOptions, meterRegistry, permissionUpdateConcurrency, this::handlePermissionUpdate),
+                ReactiveConsumerPipeline.start("permissions-response", permissionSnapshotReceiverOptions, meterRegistry, this::handleSyncResponse));
     }
 
-    @KafkaListener(topics = "permissions-update", groupId = "measurement-group")
-    public void handlePermissionUpdate(PermissionEventDTO event) {
-        kafkaStatusRepository.findFirstByOrderByIdAsc()
+    @PreDestroy
+    public void stop() {
+        if (pipelines != null) {
+            pipelines.dispose();
+        }
+    }
+
+    public Mono<Void> handlePermissionUpdate(PermissionEventDTO event) {
+        return kafkaStatusRepository.findFirstByOrderByIdAsc()
                 .flatMap(status -> {
                     if (!status.isPermissionsLoaded() && !status.isSyncInProgress()) {
                         status.setSyncInProgress(true);
@@ -34,37 +79,50 @@ public class PermissionConsumer {
                                 .then(requestFullSync());
                     }
                     return processEventIfReady(event, status);
-                })
-                .subscribe();
+                });
     }
 
     private Mono<Void> requestFullSync() {
-        System.out.println("🚀 Iniciando sincronização completa...");
+        log.info("Iniciando sincronização completa");
         return permissionRequestProducer.requestAllPermissions()
-                .doOnSuccess(v -> System.out.println("📨 Solicitação de sincronização enviada"));
+                .doOnSuccess(v -> log.info("Solicitação de sincronização enviada"));
     }
 
     private Mono<Void> processEventIfReady(PermissionEventDTO event, KafkaStatus status) {
         if (status.isPermissionsLoaded()) {
-            return permissionService.processPermissionEvent(event).then();
+            return permissionService.processPermissionEvent(event)
+                    .doOnSuccess(response -> cacheInvalidationProducer.invalidatePermission(event.getRole(), event.getAction()))
+                    .then();
         }
-        System.out.println("⏳ Evento armazenado para processamento posterior: " + event.getEventType());
+        log.info("Evento armazenado para processamento posterior: {}", event.getEventType());
         return Mono.empty();
     }
 
-    @KafkaListener(topics = "permissions-response", groupId = "client-group")
-    public void handleSyncResponse(List<PermissionEventDTO> permissions) {
-        System.out.println("📦 Recebida sincronização com " + permissions.size() + " permissões");
+    public Mono<Void> handleSyncResponse(PermissionSnapshotDTO snapshot) {
+        if (!snapshot.hasValidChecksum()) {
+            log.error("Snapshot v{} descartado: checksum inválido", snapshot.getVersion());
+            return Mono.empty();
+        }
+        log.info("Recebido snapshot v{} com {} permissões", snapshot.getVersion(), snapshot.getPermissions().size());
 
-        permissionService.saveAllPermissions(permissions)
-                .then(kafkaStatusRepository.findFirstByOrderByIdAsc())
+        return kafkaStatusRepository.findFirstByOrderByIdAsc()
                 .flatMap(status -> {
+                    if (status.getPermissionsVersion() >= snapshot.getVersion()) {
+                        log.info("Snapshot v{} ignorado: versão aplicada é v{}", snapshot.getVersion(), status.getPermissionsVersion());
+                        return Mono.empty();
+                    }
                     status.setPermissionsLoaded(true);
                     status.setSyncInProgress(false);
-                    return kafkaStatusRepository.save(status);
+                    status.setPermissionsVersion(snapshot.getVersion());
+                    // Permissões e status são gravados na mesma transação
+                    return permissionService.saveAllPermissions(snapshot.getPermissions())
+                            .then(kafkaStatusRepository.save(status))
+                            .as(transactionalOperator::transactional);
                 })
-                .doOnSuccess(s -> System.out.println("✅ Sincronização concluída! Status atualizado"))
-                .doOnError(e -> System.err.println("🔥 Falha na sincronização: " + e.getMessage()))
-                .subscribe();
+                .flatMap(status -> permissionService.reloadPermissionMatrix().thenReturn(status))
+                .doOnNext(status -> cacheInvalidationProducer.invalidateAllPermissions())
+                .doOnNext(s -> log.info("Sincronização concluída, status atualizado"))
+                .doOnError(e -> log.error("Falha na sincronização: {}", e.getMessage(), e))
+                .then();
     }
-}
\ No newline at end of file
+}
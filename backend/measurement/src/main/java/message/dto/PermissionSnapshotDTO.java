@@ -0,0 +1,51 @@
+package message.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32C;
+
+/**
+ * Conjunto completo de permissões enviado em uma única mensagem na sincronização.
+ * A versão vem de uma sequência no banco do user (monotônica entre réplicas e reinícios) e o checksum (CRC32C) cobre as permissões em ordem canônica.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PermissionSnapshotDTO {
+
+    @JsonProperty("version")
+    private long version;
+    @JsonProperty("checksum")
+    private String checksum;
+    @JsonProperty("permissions")
+    private List<PermissionEventDTO> permissions;
+
+    public static String checksumOf(List<PermissionEventDTO> permissions) {
+        List<String> lines = permissions.stream()
+                .map(p -> canonical(p.getRole()) + ':' + canonical(p.getAction()) + ':' + p.isActive())
+                .sorted()
+                .toList();
+        CRC32C crc = new CRC32C();
+        for (String line : lines) {
+            crc.update(line.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    // Role ou action ausente entra como vazio: o checksum não falha, e o snapshot é validado normalmente
+    private static String canonical(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+
+    public boolean hasValidChecksum() {
+        return permissions != null && checksum != null && checksum.equals(checksumOf(permissions));
+    }
+
+}
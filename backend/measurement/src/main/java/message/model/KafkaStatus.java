@@ -17,6 +17,8 @@ public class KafkaStatus {
     private boolean permissionsLoaded;
     @Column("sync_in_progress")
     private boolean syncInProgress;  // Novo campo
+    @Column("permissions_version")
+    private long permissionsVersion;  // Versão do último snapshot aplicado
 
     public KafkaStatus() {
         this.permissionsLoaded = false;
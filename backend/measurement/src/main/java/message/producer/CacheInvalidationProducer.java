@@ -0,0 +1,124 @@
+package message.producer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import message.config.KafkaConfig;
+import message.dto.CacheInvalidationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Publica invalidações de cache para as demais réplicas. Invalidações próximas no tempo são agrupadas
+ * (até {@code cache.invalidation.max-batch} chaves ou {@code cache.invalidation.window-ms}) e enviadas em um único registro.
+ */
+@Service
+public class CacheInvalidationProducer {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationProducer.class);
+
+    private final KafkaTemplate<String, CacheInvalidationDTO> cacheInvalidationKafkaTemplate;
+    private final int maxBatch;
+    private final Duration window;
+
+    // Multicast sem autoCancel e sem limite: ao contrário do unicast, aceita nova assinatura depois de um erro,
+    // e as chaves emitidas nesse intervalo ficam no buffer
+    private final Sinks.Many<PendingKey> pending = Sinks.many().multicast().onBackpressureBuffer(Integer.MAX_VALUE, false);
+    private Disposable publisher;
+
+    public CacheInvalidationProducer(KafkaTemplate<String, CacheInvalidationDTO> cacheInvalidationKafkaTemplate,
+                                     @Value("${cache.invalidation.max-batch:256}") int maxBatch,
+                                     @Value("${cache.invalidation.window-ms:50}") long windowMs) {
+        this.cacheInvalidationKafkaTemplate = cacheInvalidationKafkaTemplate;
+        this.maxBatch = maxBatch;
+        this.window = Duration.ofMillis(windowMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        // fairBackpressure: enquanto um envio está em andamento, as chaves novas esperam no próximo lote;
+        // sem isso o timer tenta entregar um lote sem demanda e a publicação termina com OverflowException
+        publisher = pending.asFlux()
+                .bufferTimeout(maxBatch, window, true)
+                .concatMap(this::send)
+                // Um erro inesperado no pipeline não pode encerrar a publicação de vez: ela é reassinada
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(5))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.error("Publicação de invalidações de cache interrompida, reiniciando: {}",
+                                signal.failure().toString())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pending.tryEmitComplete();
+        if (publisher != null) {
+            publisher.dispose();
+        }
+    }
+
+    public void invalidateUser(String email) {
+        if (email != null) {
+            emit(new PendingKey(KeyType.USER, email));
+        }
+    }
+
+    public void invalidatePermission(String role, String action) {
+        emit(new PendingKey(KeyType.PERMISSION, role.toUpperCase(Locale.ROOT) + ':' + action.toUpperCase(Locale.ROOT)));
+    }
+
+    public void invalidateAllPermissions() {
+        emit(new PendingKey(KeyType.PERMISSION, CacheInvalidationDTO.ALL_PERMISSIONS));
+    }
+
+    public void invalidateCatalogue() {
+        emit(new PendingKey(KeyType.CATALOGUE, null));
+    }
+
+    // O sink não aceita emissões concorrentes
+    private synchronized void emit(PendingKey key) {
+        pending.tryEmitNext(key);
+    }
+
+    private Mono<Void> send(List<PendingKey> batch) {
+        Set<String> users = new LinkedHashSet<>();
+        Set<String> permissions = new LinkedHashSet<>();
+        boolean catalogue = false;
+        for (PendingKey entry : batch) {
+            switch (entry.type()) {
+                case USER -> users.add(entry.key());
+                case PERMISSION -> permissions.add(entry.key());
+                case CATALOGUE -> catalogue = true;
+            }
+        }
+        if (permissions.contains(CacheInvalidationDTO.ALL_PERMISSIONS)) {
+            permissions = Set.of(CacheInvalidationDTO.ALL_PERMISSIONS);
+        }
+        CacheInvalidationDTO invalidation = new CacheInvalidationDTO(KafkaConfig.INSTANCE_ID, new ArrayList<>(users), new ArrayList<>(permissions), catalogue);
+        return Mono.fromFuture(() -> cacheInvalidationKafkaTemplate.send(KafkaConfig.CACHE_INVALIDATION_TOPIC, invalidation))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Falha ao publicar invalidação de cache: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private enum KeyType {USER, PERMISSION, CATALOGUE}
+
+    private record PendingKey(KeyType type, String key) {
+    }
+}
@@ -1,6 +1,8 @@
 package message.producer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -11,6 +13,8 @@ import java.util.Map;
 @Service
 public class PermissionRequestProducer {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionRequestProducer.class);
+
     private final KafkaTemplate<String, String> kafkaTemplate;
 
     public PermissionRequestProducer(KafkaTemplate<String, String> kafkaTemplate) {
@@ -18,11 +22,12 @@ public class PermissionRequestProducer {
     }
 
     public Mono<Void> requestAllPermissions() {
-        return Mono.fromRunnable(() -> {
-            String payload = "{\"replyTopic\":\"permissions-response\", \"timestamp\":\"" + System.currentTimeMillis() + "\"}";
-            kafkaTemplate.send("permissions-all", payload);
-            System.out.println("📨 Solicitação de sincronização enviada para o User Service");
-        });
+        return Mono.fromFuture(() -> {
+                    String payload = "{\"replyTopic\":\"permissions-response\", \"timestamp\":\"" + System.currentTimeMillis() + "\"}";
+                    return kafkaTemplate.send("permissions-all", payload);
+                })
+                .doOnSuccess(result -> log.info("Solicitação de sincronização enviada para o User Service"))
+                .then();
     }
 
 
@@ -1,6 +1,8 @@
 package message.repository;
 
 import message.model.RolePermissionModel;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -10,4 +12,18 @@ public interface RolePermissionRepository extends ReactiveCrudRepository<RolePer
 
     Mono<RolePermissionModel> findByRoleAndAction(String role, String action);
 
+    // Operações em lote usadas na sincronização completa: um comando por lote de linhas
+    @Modifying
+    @Query("INSERT INTO role_permissions (role, action, active) " +
+            "SELECT * FROM UNNEST(CAST(:roles AS VARCHAR[]), CAST(:actions AS VARCHAR[]), CAST(:actives AS BOOLEAN[]))")
+    Mono<Integer> insertAll(String[] roles, String[] actions, Boolean[] actives);
+
+    @Modifying
+    @Query("UPDATE role_permissions SET active = :active WHERE id = ANY(:ids)")
+    Mono<Integer> updateActiveByIds(boolean active, Long[] ids);
+
+    @Modifying
+    @Query("DELETE FROM role_permissions WHERE id = ANY(:ids)")
+    Mono<Integer> deleteByIds(Long[] ids);
+
 }
@@ -1,28 +1,83 @@
 package message.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import message.dto.PermissionEventDTO;
 import message.model.RolePermissionModel;
 import message.repository.RolePermissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import utils.JwtUtils;
+import utils.TrustedIdentity;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class PermissionService {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionService.class);
+
+    private static final Mono<Boolean> GRANTED = Mono.just(true);
+    private static final Mono<Boolean> DENIED = Mono.just(false);
+    private static final int SYNC_BATCH_SIZE = 500;
+
     private final RolePermissionRepository rolePermissionRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Matriz role -> action -> active mantida em memória.
+     * É recarregada por inteiro após a sincronização completa e atualizada no lugar pelos eventos de permissions-update.
+     */
+    private volatile Map<String, Map<String, Boolean>> permissionMatrix = new ConcurrentHashMap<>();
+    private volatile boolean matrixLoaded = false;
 
-    public PermissionService(RolePermissionRepository rolePermissionRepository) {
+    /**
+     * Alterações aplicadas à matriz enquanto alguma recarga lê role_permissions. Cada recarga em andamento tem a sua
+     * lista e reaplica as alterações na matriz nova antes de publicá-la, para que um evento processado durante a
+     * leitura não se perca. Protegido por matrixLock.
+     */
+    private final List<List<MatrixChange>> reloadChanges = new ArrayList<>();
+    private final Object matrixLock = new Object();
+
+    // Checagens de permissão: "hit" respondidas pela matriz, "miss" pelo banco (matriz ainda não carregada),
+    // "none" negadas sem consulta por falta de role
+    private final Counter grantedFromMatrix;
+    private final Counter deniedFromMatrix;
+    private final Counter grantedFromDatabase;
+    private final Counter deniedFromDatabase;
+    private final Counter deniedWithoutRole;
+
+    public PermissionService(RolePermissionRepository rolePermissionRepository, TransactionalOperator transactionalOperator,
+                             MeterRegistry meterRegistry) {
         this.rolePermissionRepository = rolePermissionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.grantedFromMatrix = checkCounter(meterRegistry, "hit", "granted");
+        this.deniedFromMatrix = checkCounter(meterRegistry, "hit", "denied");
+        this.grantedFromDatabase = checkCounter(meterRegistry, "miss", "granted");
+        this.deniedFromDatabase = checkCounter(meterRegistry, "miss", "denied");
+        this.deniedWithoutRole = checkCounter(meterRegistry, "none", "denied");
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String lookup, String result) {
+        return Counter.builder("permission.checks")
+                .tag("lookup", lookup)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     public Mono<ResponseEntity<String>> processPermissionEvent(PermissionEventDTO event) {
-        System.out.println("🔄 Processando evento: " + event.getEventType());
+        log.debug("Processando evento {} para {}:{}", event.getEventType(), event.getRole(), event.getAction());
         return switch (event.getEventType()) {
             case "ADDED" -> addPermission(event);
             case "UPDATED" -> updatePermission(event);
@@ -36,6 +91,7 @@ public class PermissionService {
         return rolePermissionRepository.findByRoleAndAction(event.getRole(), event.getAction())
                 .flatMap(existing -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body("Permissão já existe")))
                 .switchIfEmpty(rolePermissionRepository.save(new RolePermissionModel(event.getRole(), event.getAction(), event.isActive()))
+                        .doOnSuccess(saved -> putInMatrix(saved.getRole(), saved.getAction(), saved.isActive()))
                         .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body("Permissão criada com sucesso")));
     }
 
@@ -44,6 +100,7 @@ public class PermissionService {
                 .flatMap(existingPermission -> {
                     existingPermission.setActive(event.isActive());
                     return rolePermissionRepository.save(existingPermission)
+                            .doOnSuccess(saved -> putInMatrix(saved.getRole(), saved.getAction(), saved.isActive()))
                             .thenReturn(ResponseEntity.ok("Permissão atualizada"));
                 })
                 .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Permissão não encontrada")));
@@ -52,34 +109,182 @@ public class PermissionService {
     public Mono<ResponseEntity<String>> removePermission(PermissionEventDTO event) {
         return rolePermissionRepository.findByRoleAndAction(event.getRole(), event.getAction())
                 .flatMap(existingPermission -> rolePermissionRepository.delete(existingPermission)
+                        .doOnSuccess(v -> removeFromMatrix(existingPermission.getRole(), existingPermission.getAction()))
                         .thenReturn(ResponseEntity.ok("Permissão removida")))
                 .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Permissão não encontrada")));
     }
 
+    /**
+     * Aplica o conjunto completo de permissões comparando-o com o que já está em role_permissions:
+     * só as linhas removidas, alteradas e novas são gravadas, em comandos por lote e numa única transação.
+     */
     public Mono<Void> saveAllPermissions(List<PermissionEventDTO> permissions) {
-        return rolePermissionRepository.deleteAll()
-                .thenMany(Flux.fromIterable(permissions))
-                .map(perm -> new RolePermissionModel(
-                        perm.getRole().toUpperCase(),
-                        perm.getAction().toUpperCase(),
-                        perm.isActive()
-                ))
-                .flatMap(rolePermissionRepository::save)
-                .then()
-                .doOnSuccess(v -> System.out.println("💾 Todas as permissões foram persistidas"));
+        Map<String, PermissionEventDTO> incoming = new LinkedHashMap<>();
+        for (PermissionEventDTO perm : permissions) {
+            incoming.put(permissionKey(perm.getRole(), perm.getAction()), perm);
+        }
+
+        return rolePermissionRepository.findAll()
+                .collectList()
+                .flatMap(stored -> {
+                    List<Long> removed = new ArrayList<>();
+                    List<Long> activated = new ArrayList<>();
+                    List<Long> deactivated = new ArrayList<>();
+                    for (RolePermissionModel row : stored) {
+                        PermissionEventDTO perm = incoming.remove(permissionKey(row.getRole(), row.getAction()));
+                        if (perm == null) {
+                            removed.add(row.getId());
+                        } else if (perm.isActive() != row.isActive()) {
+                            (perm.isActive() ? activated : deactivated).add(row.getId());
+                        }
+                    }
+                    List<PermissionEventDTO> added = new ArrayList<>(incoming.values());
+
+                    log.info("Diferenças da sincronização: {} novas, {} alteradas, {} removidas",
+                            added.size(), activated.size() + deactivated.size(), removed.size());
+
+                    return Flux.concat(
+                                    batches(removed).concatMap(ids -> rolePermissionRepository.deleteByIds(ids.toArray(Long[]::new))),
+                                    batches(activated).concatMap(ids -> rolePermissionRepository.updateActiveByIds(true, ids.toArray(Long[]::new))),
+                                    batches(deactivated).concatMap(ids -> rolePermissionRepository.updateActiveByIds(false, ids.toArray(Long[]::new))),
+                                    batches(added).concatMap(this::insertBatch))
+                            .then();
+                })
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(v -> log.info("Todas as permissões foram persistidas"));
+    }
+
+    private Mono<Integer> insertBatch(List<PermissionEventDTO> batch) {
+        return rolePermissionRepository.insertAll(
+                batch.stream().map(perm -> perm.getRole().toUpperCase(Locale.ROOT)).toArray(String[]::new),
+                batch.stream().map(perm -> perm.getAction().toUpperCase(Locale.ROOT)).toArray(String[]::new),
+                batch.stream().map(PermissionEventDTO::isActive).toArray(Boolean[]::new));
+    }
+
+    private static <T> Flux<List<T>> batches(List<T> values) {
+        return Flux.fromIterable(values).buffer(SYNC_BATCH_SIZE);
     }
 
+    private static String permissionKey(String role, String action) {
+        return role.toUpperCase(Locale.ROOT) + ':' + action.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Recarrega a matriz de permissões a partir da tabela role_permissions e a publica de uma vez.
+     */
+    public Mono<Void> reloadPermissionMatrix() {
+        return Mono.defer(() -> {
+            // Registrada antes da consulta: o que for alterado depois dela pode não estar no resultado
+            List<MatrixChange> changes = new ArrayList<>();
+            synchronized (matrixLock) {
+                reloadChanges.add(changes);
+            }
+            return rolePermissionRepository.findAll()
+                    .collect(ConcurrentHashMap<String, Map<String, Boolean>>::new, (matrix, perm) ->
+                            matrix.computeIfAbsent(perm.getRole().toUpperCase(Locale.ROOT), r -> new ConcurrentHashMap<>())
+                                    .put(perm.getAction().toUpperCase(Locale.ROOT), perm.isActive()))
+                    .doOnNext(matrix -> {
+                        synchronized (matrixLock) {
+                            changes.forEach(change -> change.applyTo(matrix));
+                            permissionMatrix = matrix;
+                            matrixLoaded = true;
+                        }
+                        log.info("Matriz de permissões carregada com {} roles ({} alterações reaplicadas)",
+                                matrix.size(), changes.size());
+                    })
+                    .doFinally(signal -> {
+                        synchronized (matrixLock) {
+                            reloadChanges.remove(changes);
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Relê uma única permissão do banco para a matriz, após ela ter sido alterada por outra réplica.
+     */
+    public Mono<Void> refreshPermission(String role, String action) {
+        return rolePermissionRepository.findByRoleAndAction(role, action)
+                .doOnNext(perm -> putInMatrix(perm.getRole(), perm.getAction(), perm.isActive()))
+                .switchIfEmpty(Mono.fromRunnable(() -> removeFromMatrix(role, action)))
+                .then();
+    }
+
+    /**
+     * Usa a identidade repassada pelo gateway quando presente; sem ela, extrai a role do próprio token.
+     */
     public Mono<Boolean> hasPermission(String token, String actionString) {
-        if (token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
+        return Mono.deferContextual(context -> {
+            String roleName = context.hasKey(TrustedIdentity.class)
+                    ? context.get(TrustedIdentity.class).role()
+                    : JwtUtils.getRoleFromToken(stripBearer(token));
+            return hasRolePermission(roleName, actionString);
+        });
+    }
 
-        String roleName = JwtUtils.getRoleFromToken(token);
+    private Mono<Boolean> hasRolePermission(String roleName, String actionString) {
         if (roleName == null) {
-            return Mono.just(false);
+            deniedWithoutRole.increment();
+            return DENIED;
+        }
+
+        // toUpperCase devolve a mesma instância quando a String já está em maiúsculas
+        String role = roleName.toUpperCase(Locale.ROOT);
+        String action = actionString.toUpperCase(Locale.ROOT);
+
+        if (!matrixLoaded) {
+            return rolePermissionRepository.findByRoleAndAction(role, action)
+                    .map(RolePermissionModel::isActive)
+                    .defaultIfEmpty(false)
+                    .doOnNext(granted -> (granted ? grantedFromDatabase : deniedFromDatabase).increment());
+        }
+
+        Map<String, Boolean> actions = permissionMatrix.get(role);
+        if (actions != null && Boolean.TRUE.equals(actions.get(action))) {
+            grantedFromMatrix.increment();
+            return GRANTED;
+        }
+        deniedFromMatrix.increment();
+        return DENIED;
+    }
+
+    private static String stripBearer(String token) {
+        return token.startsWith("Bearer ") ? token.substring(7) : token;
+    }
+
+    private void putInMatrix(String role, String action, boolean active) {
+        changeMatrix(new MatrixChange(role.toUpperCase(Locale.ROOT), action.toUpperCase(Locale.ROOT), active));
+    }
+
+    private void removeFromMatrix(String role, String action) {
+        changeMatrix(new MatrixChange(role.toUpperCase(Locale.ROOT), action.toUpperCase(Locale.ROOT), null));
+    }
+
+    private void changeMatrix(MatrixChange change) {
+        synchronized (matrixLock) {
+            change.applyTo(permissionMatrix);
+            for (List<MatrixChange> changes : reloadChanges) {
+                changes.add(change);
+            }
         }
+    }
 
-        return rolePermissionRepository.findByRoleAndAction(roleName.toUpperCase(), actionString.toUpperCase()).map(RolePermissionModel::isActive).defaultIfEmpty(false);
+    /**
+     * Alteração de uma célula da matriz; active nulo remove a permissão.
+     */
+    private record MatrixChange(String role, String action, Boolean active) {
+
+        void applyTo(Map<String, Map<String, Boolean>> matrix) {
+            if (active != null) {
+                matrix.computeIfAbsent(role, r -> new ConcurrentHashMap<>()).put(action, active);
+                return;
+            }
+            Map<String, Boolean> actions = matrix.get(role);
+            if (actions != null) {
+                actions.remove(action);
+            }
+        }
     }
 
 }
@@ -1,5 +1,6 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,6 +12,7 @@ import java.util.Objects;
 
 
 @Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Table("itens")
 public class Item {
 
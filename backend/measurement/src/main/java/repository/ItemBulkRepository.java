@@ -0,0 +1,23 @@
+package repository;
+
+import model.Item;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ItemBulkRepository {
+
+    /**
+     * Insere todos os itens em um único INSERT multi-linha, ignorando os que já existem (mesmo name e unit).
+     * Retorna a quantidade de linhas efetivamente inseridas.
+     */
+    Mono<Long> insertIgnoringDuplicates(List<Item> itens);
+
+    /**
+     * Como {@link #insertIgnoringDuplicates}, mas devolve as linhas inseridas já com o id gerado (RETURNING).
+     * Itens que já existiam, ou repetidos dentro da própria lista, não aparecem no resultado.
+     */
+    Flux<Item> insertReturning(List<Item> itens);
+
+}
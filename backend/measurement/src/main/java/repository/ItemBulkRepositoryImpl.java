@@ -0,0 +1,61 @@
+package repository;
+
+import model.Item;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class ItemBulkRepositoryImpl implements ItemBulkRepository {
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    public ItemBulkRepositoryImpl(DatabaseClient databaseClient, R2dbcConverter converter) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+    }
+
+    @Override
+    public Mono<Long> insertIgnoringDuplicates(List<Item> itens) {
+        if (itens.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return insert(itens, "").fetch().rowsUpdated();
+    }
+
+    @Override
+    public Flux<Item> insertReturning(List<Item> itens) {
+        if (itens.isEmpty()) {
+            return Flux.empty();
+        }
+        return insert(itens, " RETURNING id, name, unit")
+                .map((row, metadata) -> converter.read(Item.class, row, metadata))
+                .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec insert(List<Item> itens, String suffix) {
+        StringBuilder sql = new StringBuilder("INSERT INTO app.itens (name, unit) VALUES ");
+        for (int i = 0; i < itens.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("($").append(2 * i + 1).append(", $").append(2 * i + 2).append(')');
+        }
+        sql.append(" ON CONFLICT (name, unit) DO NOTHING").append(suffix);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < itens.size(); i++) {
+            Item item = itens.get(i);
+            spec = bindNullable(bindNullable(spec, 2 * i, item.getName()), 2 * i + 1, item.getUnit());
+        }
+        return spec;
+    }
+
+    // POST api/itens não valida os campos: um nome ou unidade ausente vira NULL, como no save() do repositório
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, int index, String value) {
+        return value == null ? spec.bindNull(index, String.class) : spec.bind(index, value);
+    }
+}
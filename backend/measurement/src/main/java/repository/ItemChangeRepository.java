@@ -0,0 +1,20 @@
+package repository;
+
+import dto.ItemChangeDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ItemChangeRepository {
+
+    /**
+     * Alterações com revisão maior que "since", em ordem de revisão. Devolve pelo menos "limit" linhas quando houver,
+     * sem cortar uma revisão ao meio (uma importação em lote grava várias linhas com a mesma revisão).
+     */
+    Flux<ItemChangeDTO> findChangesSince(long since, int limit);
+
+    /**
+     * Remove o item e grava o tombstone no mesmo comando. Retorna a quantidade de itens removidos (0 ou 1).
+     */
+    Mono<Long> deleteWithTombstone(long id);
+
+}
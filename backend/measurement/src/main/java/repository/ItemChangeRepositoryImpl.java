@@ -0,0 +1,64 @@
+package repository;
+
+import dto.ItemChangeDTO;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ItemChangeRepositoryImpl implements ItemChangeRepository {
+
+    // bound: revisão da limit-ésima alteração; horizon: não passa dela nem do xmin do snapshot,
+    // abaixo do qual nenhuma transação ainda pode confirmar
+    private static final String CHANGES_SQL = """
+            WITH bound AS (
+                SELECT revision FROM (
+                    (SELECT revision FROM app.itens WHERE revision > $1 ORDER BY revision LIMIT $2)
+                    UNION ALL
+                    (SELECT revision FROM app.item_tombstones WHERE revision > $1 ORDER BY revision LIMIT $2)
+                ) candidates
+                ORDER BY revision OFFSET $2 - 1 LIMIT 1
+            ), horizon AS (
+                SELECT LEAST(COALESCE((SELECT revision FROM bound), 9223372036854775807),
+                             pg_snapshot_xmin(pg_current_snapshot())::text::bigint - 1) AS revision
+            )
+            SELECT id, name, unit, revision, FALSE AS deleted
+            FROM app.itens WHERE revision > $1 AND revision <= (SELECT revision FROM horizon)
+            UNION ALL
+            SELECT item_id, NULL, NULL, revision, TRUE
+            FROM app.item_tombstones WHERE revision > $1 AND revision <= (SELECT revision FROM horizon)
+            ORDER BY revision, id
+            """;
+
+    private static final String DELETE_SQL = """
+            WITH deleted AS (DELETE FROM app.itens WHERE id = $1 RETURNING id)
+            INSERT INTO app.item_tombstones (item_id) SELECT id FROM deleted
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public ItemChangeRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<ItemChangeDTO> findChangesSince(long since, int limit) {
+        return databaseClient.sql(CHANGES_SQL)
+                .bind(0, since)
+                .bind(1, limit)
+                .map(row -> new ItemChangeDTO(
+                        row.get("revision", Long.class),
+                        row.get("id", Long.class),
+                        row.get("name", String.class),
+                        row.get("unit", String.class),
+                        Boolean.TRUE.equals(row.get("deleted", Boolean.class))))
+                .all();
+    }
+
+    @Override
+    public Mono<Long> deleteWithTombstone(long id) {
+        return databaseClient.sql(DELETE_SQL)
+                .bind(0, id)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -9,11 +9,19 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface ItemRepository extends R2dbcRepository<Item, Long> {
+public interface ItemRepository extends R2dbcRepository<Item, Long>, ItemBulkRepository, ItemChangeRepository {
 
     Mono<Item> findByNameAndUnit(String name, String unit);
 
     @Query("SELECT * FROM app.itens")
     Flux<Item> findAll();
 
+    // Paginação por keyset: próxima página a partir do último id recebido
+    @Query("SELECT * FROM app.itens WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Item> findPageAfter(long after, int limit);
+
+    // Um único comando para qualquer quantidade de ids: o array vai como um parâmetro só
+    @Query("SELECT * FROM app.itens WHERE id = ANY(:ids)")
+    Flux<Item> findAllByIdIn(Long[] ids);
+
 }
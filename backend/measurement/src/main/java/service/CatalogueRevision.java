@@ -0,0 +1,76 @@
+package service;
+
+import message.producer.CacheInvalidationProducer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Revisão do catálogo de itens desta réplica, usada como ETag forte dos GETs de itens. Avança a cada criação,
+ * importação ou remoção, feita aqui ou em outra réplica (avisada pelo tópico cache-invalidation).
+ * O ETag inclui um identificador da execução: depois de um restart a contagem recomeça do zero e não pode
+ * validar ETags emitidos antes dele. Réplicas diferentes emitem ETags diferentes para o mesmo conteúdo,
+ * o que só custa um 200 a mais quando o balanceador troca de réplica.
+ */
+@Component
+public class CatalogueRevision {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final CacheInvalidationProducer cacheInvalidationProducer;
+
+    // Revisão e ETag trocados juntos, para o ETag nunca ficar para trás da revisão
+    private final AtomicReference<Revision> current;
+
+    public CatalogueRevision(CacheInvalidationProducer cacheInvalidationProducer) {
+        this.cacheInvalidationProducer = cacheInvalidationProducer;
+        this.current = new AtomicReference<>(revision(0));
+    }
+
+    public String eTag() {
+        return current.get().eTag();
+    }
+
+    /**
+     * Chamado depois que uma alteração desta réplica foi gravada: avança a revisão e avisa as demais réplicas.
+     */
+    public void itemsChanged() {
+        advance();
+        cacheInvalidationProducer.invalidateCatalogue();
+    }
+
+    /**
+     * Avança só a revisão local; usado para alterações feitas em outra réplica.
+     */
+    public void advance() {
+        current.updateAndGet(previous -> revision(previous.number() + 1));
+    }
+
+    /**
+     * Compara o If-None-Match recebido com o ETag informado. Aceita lista separada por vírgulas, "*"
+     * e ETags fracos (W/), como manda a comparação fraca do If-None-Match.
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Revision revision(long number) {
+        return new Revision(number, "\"" + epoch + "-" + number + "\"");
+    }
+
+    private record Revision(long number, String eTag) {
+    }
+}
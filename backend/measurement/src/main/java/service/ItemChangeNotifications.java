@@ -0,0 +1,101 @@
+package service;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Escuta o canal item_changes do Postgres (NOTIFY disparado pelos triggers de app.itens, um por comando) com uma
+ * única conexão fora do pool e repassa a revisão de cada transação a todos os assinantes do SSE. O aviso só diz que
+ * o catálogo mudou: as linhas vêm do feed api/itens/changes, a partir do cursor do próprio cliente. Por isso um
+ * assinante que não acompanha fica só com a revisão mais recente, sem ser desconectado nem atrasar os demais.
+ * Alterações feitas enquanto a conexão de escuta é refeita aparecem na próxima busca ao feed.
+ */
+@Component
+public class ItemChangeNotifications {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemChangeNotifications.class);
+
+    private static final String CHANNEL = "item_changes";
+
+    private final ConnectionFactory connectionFactory;
+
+    // Sem assinantes, as notificações são descartadas; a emissão vem só da conexão de escuta
+    private final Sinks.Many<Long> changes = Sinks.many().multicast().directBestEffort();
+
+    private Disposable listener;
+
+    public ItemChangeNotifications(ConnectionFactory connectionFactory) {
+        // A conexão fica presa ao LISTEN enquanto o serviço roda: vem da fábrica por baixo do pool
+        this.connectionFactory = connectionFactory instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof ConnectionFactory unwrapped
+                ? unwrapped
+                : connectionFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listener = listen()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        // Depois de alguma notificação recebida, a espera volta a começar em 1s
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn("Conexão de escuta de {} perdida, reconectando: {}",
+                                CHANNEL, signal.failure().getMessage())))
+                .subscribe(changes::tryEmitNext);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listener != null) {
+            listener.dispose();
+        }
+        changes.tryEmitComplete();
+    }
+
+    /**
+     * Revisões gravadas a partir do momento da assinatura. Sem demanda do assinante, fica só a mais recente.
+     */
+    public Flux<Long> changes() {
+        return changes.asFlux().onBackpressureLatest();
+    }
+
+    private Flux<Long> listen() {
+        return Flux.usingWhen(
+                Mono.from(connectionFactory.create()).cast(PostgresqlConnection.class),
+                connection -> connection.getNotifications()
+                        // Assina as notificações antes de executar o LISTEN para não perder nenhuma no intervalo
+                        .mergeWith(connection.createStatement("LISTEN " + CHANNEL).execute()
+                                .flatMap(PostgresqlResult::getRowsUpdated)
+                                .doOnComplete(() -> log.info("Escutando o canal {}", CHANNEL))
+                                .then(Mono.empty()))
+                        .mapNotNull(this::parse),
+                Connection::close)
+                // O servidor fechou a conexão sem erro: trata como falha para reconectar
+                .concatWith(Mono.error(() -> new IllegalStateException("conexão de escuta encerrada")));
+    }
+
+    private Long parse(Notification notification) {
+        try {
+            return Long.parseLong(notification.getParameter());
+        } catch (NumberFormatException e) {
+            log.error("Notificação inválida em {}: {}", CHANNEL, notification.getParameter());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import model.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Agrupa as criações de item que chegam juntas (até {@code measurement.items.insert.max-batch} itens ou
+ * {@code measurement.items.insert.window-ms}) em um único INSERT multi-linha com RETURNING: um comando e um commit
+ * por lote em vez de um por requisição. Cada chamador recebe o id da sua linha.
+ * Se o lote falhar, os itens são regravados um a um, para que o erro chegue só a quem o causou.
+ */
+@Component
+public class ItemInsertCoalescer {
+
+    private final ItemRepository itemRepository;
+    private final int maxBatch;
+    private final Duration window;
+    private final int concurrency;
+    private final DistributionSummary batchSizes;
+
+    private final Sinks.Many<PendingInsert> pending = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable writer;
+
+    public ItemInsertCoalescer(ItemRepository itemRepository, MeterRegistry meterRegistry,
+                               @Value("${measurement.items.insert.max-batch:100}") int maxBatch,
+                               @Value("${measurement.items.insert.window-ms:2}") long windowMs,
+                               @Value("${measurement.items.insert.concurrency:4}") int concurrency) {
+        this.itemRepository = itemRepository;
+        this.maxBatch = maxBatch;
+        this.window = Duration.ofMillis(windowMs);
+        this.concurrency = concurrency;
+        this.batchSizes = DistributionSummary.builder("items.insert.batch.size")
+                .description("Itens gravados por INSERT agrupado")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // fairBackpressure: com todos os lotes em andamento, os pedidos continuam se acumulando no próximo lote
+        writer = pending.asFlux()
+                .bufferTimeout(maxBatch, window, true)
+                .flatMap(this::write, concurrency)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pending.tryEmitComplete();
+        if (writer != null) {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Grava o item no próximo lote. Completa com o id gerado, ou vazio se já existir item com o mesmo name e unit.
+     */
+    public Mono<Long> insert(Item item) {
+        PendingInsert request = new PendingInsert(item, Sinks.one());
+        emit(request);
+        return request.result().asMono();
+    }
+
+    // O sink unicast não aceita emissões concorrentes
+    private synchronized void emit(PendingInsert request) {
+        if (pending.tryEmitNext(request).isFailure()) {
+            request.result().tryEmitError(new IllegalStateException("Gravação de itens encerrada"));
+        }
+    }
+
+    private Mono<Void> write(List<PendingInsert> batch) {
+        batchSizes.record(batch.size());
+        // Nenhum erro pode escapar daqui: encerraria a gravação de todos os lotes seguintes
+        return insertAll(batch)
+                .onErrorResume(e -> batch.size() == 1
+                        ? fail(batch, e)
+                        : Flux.fromIterable(batch)
+                                .concatMap(request -> insertAll(List.of(request))
+                                        .onErrorResume(error -> fail(List.of(request), error)))
+                                .then());
+    }
+
+    private Mono<Void> insertAll(List<PendingInsert> batch) {
+        return itemRepository.insertReturning(batch.stream().map(PendingInsert::item).toList())
+                .collectList()
+                .doOnNext(inserted -> complete(batch, inserted))
+                .then();
+    }
+
+    /**
+     * Entrega cada linha inserida ao primeiro chamador ainda sem resposta com o mesmo name e unit; quem sobra
+     * colidiu com um item existente (ou com outro do mesmo lote) e recebe vazio.
+     */
+    private static void complete(List<PendingInsert> batch, List<Item> inserted) {
+        Map<Key, Queue<PendingInsert>> waiting = new HashMap<>();
+        for (PendingInsert request : batch) {
+            waiting.computeIfAbsent(Key.of(request.item()), key -> new ArrayDeque<>()).add(request);
+        }
+        for (Item item : inserted) {
+            Queue<PendingInsert> requests = waiting.get(Key.of(item));
+            PendingInsert request = requests == null ? null : requests.poll();
+            if (request != null) {
+                request.result().tryEmitValue(item.getId());
+            }
+        }
+        for (Queue<PendingInsert> requests : waiting.values()) {
+            for (PendingInsert request : requests) {
+                request.result().tryEmitEmpty();
+            }
+        }
+    }
+
+    private static Mono<Void> fail(List<PendingInsert> batch, Throwable error) {
+        for (PendingInsert request : batch) {
+            request.result().tryEmitError(error);
+        }
+        return Mono.empty();
+    }
+
+    private record PendingInsert(Item item, Sinks.One<Long> result) {
+    }
+
+    private record Key(String name, String unit) {
+
+        static Key of(Item item) {
+            return new Key(item.getName(), item.getUnit());
+        }
+    }
+}
@@ -1,86 +1,313 @@
 package service;
 
+import config.CorrelationId;
 import dto.ItemDTO;
+import dto.ItemImportBatchDTO;
+import dto.ItemLookupDTO;
+import dto.ItemPageDTO;
 import message.repository.RolePermissionRepository;
 import message.service.PermissionService;
 import model.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import repository.ItemRepository;
-import utils.JwtUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 
 
 @Service
 public class ItemService {
 
+    private static final Logger log = LoggerFactory.getLogger(ItemService.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_CHANGES_LIMIT = 1000;
+    private static final int MAX_CHANGES_LIMIT = 10000;
+    private static final int MAX_BATCH_IDS = 1000;
+    // Postgres aceita no máximo 65535 parâmetros por comando e cada item usa dois
+    private static final int MAX_BULK_BATCH_SIZE = 32767;
+    // name e unit são VARCHAR(50) em app.itens
+    private static final int MAX_FIELD_LENGTH = 50;
+
     private final ItemRepository itemRepository;
     private final PermissionService permissionService;
+    private final CatalogueRevision catalogueRevision;
+    private final ItemChangeNotifications itemChangeNotifications;
+    private final ItemInsertCoalescer itemInsertCoalescer;
+    private final int streamPageSize;
+    private final Duration eventsHeartbeat;
+    private final int bulkBatchSize;
 
-    public ItemService(ItemRepository itemRepository, PermissionService permissionService) {
+    public ItemService(ItemRepository itemRepository, PermissionService permissionService, CatalogueRevision catalogueRevision,
+                       ItemChangeNotifications itemChangeNotifications, ItemInsertCoalescer itemInsertCoalescer,
+                       @Value("${measurement.items.stream.page-size:500}") int streamPageSize,
+                       @Value("${measurement.items.bulk.batch-size:1000}") int bulkBatchSize,
+                       @Value("${measurement.items.events.heartbeat-seconds:15}") long eventsHeartbeatSeconds) {
         this.itemRepository = itemRepository;
         this.permissionService = permissionService;
+        this.catalogueRevision = catalogueRevision;
+        this.itemChangeNotifications = itemChangeNotifications;
+        this.itemInsertCoalescer = itemInsertCoalescer;
+        this.streamPageSize = streamPageSize;
+        this.eventsHeartbeat = Duration.ofSeconds(eventsHeartbeatSeconds);
+        this.bulkBatchSize = Math.max(1, Math.min(bulkBatchSize, MAX_BULK_BATCH_SIZE));
     }
 
     public Mono<ResponseEntity<String>> createItem(ItemDTO itemDTO, String token) {
-        String role = JwtUtils.getRoleFromToken(token);
-        return permissionService.hasPermission(role, "CREATE_ITEM")
+        return permissionService.hasPermission(token, "CREATE_ITEM")
                 .flatMap(hasPermission -> {
                     if (!hasPermission) {
                         return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
                     }
-                    Item item = new Item(itemDTO.getName(), itemDTO.getUnit());
-                    return itemRepository.save(item)
-                            .map(savedItem -> ResponseEntity.status(HttpStatus.CREATED)
-                                    .body("Item criado com sucesso: " + savedItem.getId()));
+                    // Gravado junto com as demais criações simultâneas; vazio quando o item já existe
+                    return itemInsertCoalescer.insert(new Item(itemDTO.getName(), itemDTO.getUnit()))
+                            .doOnNext(id -> catalogueRevision.itemsChanged())
+                            .map(id -> ResponseEntity.status(HttpStatus.CREATED).body("Item criado com sucesso: " + id))
+                            .defaultIfEmpty(ResponseEntity.status(HttpStatus.CONFLICT).body("Item já existe."))
+                            .onErrorResume(DataIntegrityViolationException.class,
+                                    e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body("Item já existe.")));
+                });
+    }
+
+    /**
+     * Importa itens em lote: a permissão CREATE_ITEM é checada uma única vez e os itens recebidos são gravados
+     * em INSERTs multi-linha de measurement.items.bulk.batch-size itens. Responde um resultado por lote.
+     */
+    public Mono<ResponseEntity<?>> importItens(Flux<ItemDTO> itens, String token) {
+        return permissionService.hasPermission(token, "CREATE_ITEM")
+                .<ResponseEntity<?>>map(hasPermission -> {
+                    if (!hasPermission) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado.");
+                    }
+                    return ResponseEntity.ok(importBatches(itens));
+                });
+    }
+
+    private Flux<ItemImportBatchDTO> importBatches(Flux<ItemDTO> itens) {
+        return itens.buffer(bulkBatchSize)
+                .index()
+                .concatMap(indexed -> {
+                    List<ItemDTO> batch = indexed.getT2();
+                    List<Item> valid = batch.stream()
+                            .filter(dto -> isValidField(dto.getName()) && isValidField(dto.getUnit()))
+                            .map(dto -> new Item(dto.getName(), dto.getUnit()))
+                            .toList();
+                    int rejected = batch.size() - valid.size();
+                    return itemRepository.insertIgnoringDuplicates(valid)
+                            .doOnNext(inserted -> {
+                                if (inserted > 0) {
+                                    catalogueRevision.itemsChanged();
+                                }
+                            })
+                            .map(inserted -> new ItemImportBatchDTO(indexed.getT1() + 1, batch.size(),
+                                    inserted, valid.size() - inserted, rejected))
+                            // A falha de um lote vira o resultado dele; os lotes seguintes continuam sendo gravados
+                            .onErrorResume(e -> CorrelationId.log(() ->
+                                            log.warn("Falha ao importar o lote {}: {}", indexed.getT1() + 1, e.getMessage()))
+                                    .thenReturn(new ItemImportBatchDTO(indexed.getT1() + 1, batch.size(),
+                                            0, 0, rejected, "Falha ao gravar o lote.")));
                 });
     }
 
+    private static boolean isValidField(String value) {
+        return value != null && !value.isBlank() && value.codePointCount(0, value.length()) <= MAX_FIELD_LENGTH;
+    }
+
     public Mono<ResponseEntity<String>> deleteItem(Long id, String token) {
-        String role = JwtUtils.getRoleFromToken(token);
-        return permissionService.hasPermission(role, "DELETE_ITEM")
+        return permissionService.hasPermission(token, "DELETE_ITEM")
                 .flatMap(hasPermission -> {
                     if (!hasPermission) {
                         return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
                     }
-                    return itemRepository.findById(id)
-                            .flatMap(existingItem -> itemRepository.delete(existingItem)
-                                    .then(Mono.just(ResponseEntity.ok("Item deletado com sucesso."))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                                    .body("Item não encontrado.")));
+                    // A remoção grava o tombstone no mesmo comando, para o feed de alterações
+                    return itemRepository.deleteWithTombstone(id)
+                            .map(deleted -> {
+                                if (deleted == 0) {
+                                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Item não encontrado.");
+                                }
+                                catalogueRevision.itemsChanged();
+                                return ResponseEntity.ok("Item deletado com sucesso.");
+                            });
                 });
     }
 
-    public Mono<ResponseEntity<?>> getAllItens(String token) {
-        String role = JwtUtils.getRoleFromToken(token);
-        return permissionService.hasPermission(role, "READ_ITEM")
+    /**
+     * Os GETs de itens respondem com o ETag da revisão do catálogo, lida antes da consulta. Se o If-None-Match
+     * já traz esse ETag, o 304 sai direto da revisão, sem consulta ao banco nem serialização.
+     */
+    public Mono<ResponseEntity<?>> getAllItens(String token, String ifNoneMatch) {
+        return permissionService.hasPermission(token, "READ_ITEM")
                 .flatMap(hasPermission -> {
                     if (!hasPermission) {
                         return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
                     }
+                    String eTag = catalogueRevision.eTag();
+                    if (CatalogueRevision.matches(ifNoneMatch, eTag)) {
+                        return Mono.just(notModified(eTag));
+                    }
+                    // Array em vez de List: o tipo do elemento continua visível em tempo de execução e a resposta
+                    // é escrita pelo ItemJsonEncoder
                     return itemRepository.findAll()
                             .collectList()
-                            .map(ResponseEntity::ok);
+                            .map(itens -> ResponseEntity.ok().eTag(eTag).body(itens.toArray(Item[]::new)));
                 });
     }
 
-    public Mono<ResponseEntity<?>> getItem(Long id, String token) {
-        String role = JwtUtils.getRoleFromToken(token);
+    /**
+     * Retorna uma página de itens ordenada por id, começando após o id informado em "after".
+     * O campo "next" da resposta é o cursor da página seguinte (ausente na última página).
+     */
+    public Mono<ResponseEntity<?>> getItemPage(Long after, Integer limit, String token, String ifNoneMatch) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = after == null ? 0L : after;
 
-        return permissionService.hasPermission(role, "READ_ITEM")
+        return permissionService.hasPermission(token, "READ_ITEM")
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
+                    }
+                    String eTag = catalogueRevision.eTag();
+                    if (CatalogueRevision.matches(ifNoneMatch, eTag)) {
+                        return Mono.just(notModified(eTag));
+                    }
+                    return itemRepository.findPageAfter(cursor, pageSize)
+                            .collectList()
+                            .map(itens -> ResponseEntity.ok().eTag(eTag).body(new ItemPageDTO(itens,
+                                    itens.size() < pageSize ? null : itens.get(itens.size() - 1).getId())));
+                });
+    }
+
+    /**
+     * Transmite o catálogo inteiro página a página (keyset), buscando a próxima página só depois que a anterior
+     * foi consumida. A memória fica limitada ao tamanho de uma página, independente do tamanho da tabela.
+     */
+    public Mono<ResponseEntity<?>> streamAllItens(String token, String ifNoneMatch) {
+        return permissionService.hasPermission(token, "READ_ITEM")
+                .<ResponseEntity<?>>map(hasPermission -> {
+                    if (!hasPermission) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado.");
+                    }
+                    String eTag = catalogueRevision.eTag();
+                    if (CatalogueRevision.matches(ifNoneMatch, eTag)) {
+                        return notModified(eTag);
+                    }
+                    return ResponseEntity.ok().eTag(eTag).body(streamPages());
+                });
+    }
+
+    private Flux<Item> streamPages() {
+        return itemRepository.findPageAfter(0L, streamPageSize)
+                .collectList()
+                .expand(page -> page.size() < streamPageSize
+                        ? Mono.empty()
+                        : itemRepository.findPageAfter(page.get(page.size() - 1).getId(), streamPageSize).collectList())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    /**
+     * Feed de alterações para sincronização incremental: itens criados e removidos depois da revisão "since",
+     * em ordem de revisão. O cliente continua a partir da revisão da última linha recebida; sem linhas,
+     * repete o mesmo "since" mais tarde.
+     */
+    public Mono<ResponseEntity<?>> getChanges(Long since, Integer limit, String token) {
+        int changesLimit = limit == null ? DEFAULT_CHANGES_LIMIT : Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT));
+        long cursor = since == null ? 0L : since;
+
+        return permissionService.hasPermission(token, "READ_ITEM")
+                .<ResponseEntity<?>>map(hasPermission -> {
+                    if (!hasPermission) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado.");
+                    }
+                    return ResponseEntity.ok(itemRepository.findChangesSince(cursor, changesLimit));
+                });
+    }
+
+    /**
+     * Server-Sent Events "itens-changed" a cada transação que criou ou removeu itens, com a revisão dela. O evento
+     * só avisa: o cliente busca as alterações em api/itens/changes?since=<última revisão recebida do feed>, que também
+     * cobre o que ele perdeu enquanto estava desconectado. Comentários periódicos mantêm a conexão aberta em proxies
+     * que encerram conexões ociosas.
+     */
+    public Mono<ResponseEntity<?>> streamChanges(String token) {
+        return permissionService.hasPermission(token, "READ_ITEM")
+                .<ResponseEntity<?>>map(hasPermission -> {
+                    if (!hasPermission) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado.");
+                    }
+                    Flux<ServerSentEvent<Long>> events = itemChangeNotifications.changes()
+                            .map(revision -> ServerSentEvent.builder(revision)
+                                    .event("itens-changed")
+                                    .build());
+                    Flux<ServerSentEvent<Long>> heartbeats = Flux.interval(eventsHeartbeat)
+                            .map(tick -> ServerSentEvent.<Long>builder().comment("keep-alive").build());
+                    return ResponseEntity.ok(Flux.merge(events, heartbeats));
+                });
+    }
+
+    /**
+     * Busca vários itens de uma vez: READ_ITEM é verificada uma vez e os ids vão em uma única consulta.
+     * A resposta segue a ordem dos ids pedidos (repetidos inclusive), com found=false para os que não existem.
+     */
+    public Mono<ResponseEntity<?>> getItens(List<Long> ids, String token, String ifNoneMatch) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS || ids.stream().anyMatch(Objects::isNull)) {
+            return Mono.just(ResponseEntity.badRequest().body("Informe de 1 a " + MAX_BATCH_IDS + " ids."));
+        }
+
+        return permissionService.hasPermission(token, "READ_ITEM")
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
+                    }
+                    String eTag = catalogueRevision.eTag();
+                    if (CatalogueRevision.matches(ifNoneMatch, eTag)) {
+                        return Mono.just(notModified(eTag));
+                    }
+                    return itemRepository.findAllByIdIn(ids.stream().distinct().toArray(Long[]::new))
+                            .collectMap(Item::getId)
+                            .map(found -> ResponseEntity.ok().eTag(eTag).body(ids.stream()
+                                    .map(id -> {
+                                        Item item = found.get(id);
+                                        return item == null
+                                                ? new ItemLookupDTO(id, null, null, false)
+                                                : new ItemLookupDTO(id, item.getName(), item.getUnit(), true);
+                                    })
+                                    .toList()));
+                });
+    }
+
+    public Mono<ResponseEntity<?>> getItem(Long id, String token, String ifNoneMatch) {
+        return permissionService.hasPermission(token, "READ_ITEM")
                 .flatMap(hasPermission -> {
                     if (!hasPermission) {
                         // Retorna Mono<ResponseEntity<?>>
                         return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."));
                     }
+                    String eTag = catalogueRevision.eTag();
+                    if (CatalogueRevision.matches(ifNoneMatch, eTag)) {
+                        return Mono.just(notModified(eTag));
+                    }
                     // Aqui também retornamos Mono<ResponseEntity<?>>
                     return itemRepository.findById(id)
                             // Forçamos o tipo <ResponseEntity<?>>
-                            .<ResponseEntity<?>>map(item -> ResponseEntity.ok(new ItemDTO(item.getName(), item.getUnit())))
+                            .<ResponseEntity<?>>map(item -> ResponseEntity.ok().eTag(eTag).body(new ItemDTO(item.getName(), item.getUnit())))
                             // Caso não encontre, definimos o retorno default (mesmo tipo)
                             .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Item não encontrado."));
                 });
     }
+
+    private static ResponseEntity<?> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
 }
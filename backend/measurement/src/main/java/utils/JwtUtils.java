@@ -1,33 +1,167 @@
 package utils;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.springframework.stereotype.Component;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.util.Arrays;
 
+/**
+ * Extrai a role do payload do JWT sem verificar a assinatura (isso já foi feito pelo gateway).
+ * Roda em toda requisição, então evita alocações: o payload é decodificado num buffer reaproveitado por thread,
+ * só o claim "role" é lido com o parser de streaming do Jackson e a role devolvida vem de uma tabela interna,
+ * sempre a mesma instância de String para o mesmo valor.
+ */
 @Component
 public class JwtUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final int INITIAL_BUFFER_BYTES = 512;
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024;
+    private static final int MAX_ROLES = 64;
+
+    private static final ThreadLocal<byte[]> payloadBuffers = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_BYTES]);
+
+    // Aceita os alfabetos base64url (o do JWT) e base64 padrão
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['+'] = 62;
+        BASE64_VALUES['_'] = 63;
+        BASE64_VALUES['/'] = 63;
+    }
+
+    // Roles já vistas; copy-on-write, limitada a MAX_ROLES entradas
+    private static volatile String[] knownRoles = new String[0];
 
     public static String getRoleFromToken(String token) {
-        try {
-            String[] splitToken = token.split("\\.");
-            if (splitToken.length < 2) return null;
+        if (token == null) {
+            return null;
+        }
+        int payloadStart = token.indexOf('.') + 1;
+        if (payloadStart == 0) {
+            return null;
+        }
+        int payloadEnd = token.indexOf('.', payloadStart);
+        if (payloadEnd < 0) {
+            payloadEnd = token.length();
+        }
 
-            // Decodifica a parte do payload do token (Base64)
-            String payloadJson = new String(Base64.getDecoder().decode(splitToken[1]));
+        byte[] buffer = payloadBuffer((payloadEnd - payloadStart) * 3 / 4 + 3);
+        if (buffer == null) {
+            return null;
+        }
+        int length = decodeBase64(token, payloadStart, payloadEnd, buffer);
+        if (length < 0) {
+            return null;
+        }
 
-            // Converte JSON para objeto e extrai a role
-            JsonNode payloadNode = objectMapper.readTree(payloadJson);
-            var role =payloadNode.has("role") ? payloadNode.get("role").asText() : null;
-            System.out.println("ROLE!!!!!!!!" + role);
+        try (JsonParser parser = jsonFactory.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // Os nomes de campo são canonizados pelo JsonFactory, sem nova String por chamada
+                boolean isRole = "role".equals(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (isRole) {
+                    if (value == JsonToken.VALUE_STRING) {
+                        return intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    }
+                    return value != null && value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] payloadBuffer(int required) {
+        byte[] buffer = payloadBuffers.get();
+        if (buffer.length >= required) {
+            return buffer;
+        }
+        if (required > MAX_PAYLOAD_BYTES) {
+            return null;
+        }
+        buffer = new byte[Math.min(MAX_PAYLOAD_BYTES, Math.max(required, buffer.length * 2))];
+        payloadBuffers.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * Decodifica src[start, end) em dst e retorna o número de bytes escritos, ou -1 se houver caractere inválido.
+     */
+    private static int decodeBase64(String src, int start, int end, byte[] dst) {
+        int bits = 0;
+        int bitCount = 0;
+        int out = 0;
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            int value = c < 128 ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = ((bits << 6) | value) & 0xFFFF;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                dst[out++] = (byte) (bits >> bitCount);
+            }
+        }
+        return out;
+    }
+
+    private static String intern(char[] chars, int offset, int length) {
+        String role = find(knownRoles, chars, offset, length);
+        if (role != null) {
             return role;
+        }
+        role = new String(chars, offset, length);
+        synchronized (JwtUtils.class) {
+            String[] roles = knownRoles;
+            String existing = find(roles, chars, offset, length);
+            if (existing != null) {
+                return existing;
+            }
+            if (roles.length < MAX_ROLES) {
+                String[] updated = Arrays.copyOf(roles, roles.length + 1);
+                updated[roles.length] = role;
+                knownRoles = updated;
+            }
+        }
+        return role;
+    }
 
+    private static String find(String[] roles, char[] chars, int offset, int length) {
+        for (String role : roles) {
+            if (role.length() == length && regionMatches(role, chars, offset)) {
+                return role;
+            }
+        }
+        return null;
+    }
 
-        } catch (Exception e) {
-            return null; // Se houver erro, retorna null
+    private static boolean regionMatches(String role, char[] chars, int offset) {
+        for (int i = 0; i < role.length(); i++) {
+            if (role.charAt(i) != chars[offset + i]) {
+                return false;
+            }
         }
+        return true;
     }
 }
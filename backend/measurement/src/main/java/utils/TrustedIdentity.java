@@ -0,0 +1,7 @@
+package utils;
+
+/**
+ * Identidade verificada pelo gateway e repassada nos cabeçalhos X-Auth-*.
+ */
+public record TrustedIdentity(String subject, String role) {
+}
@@ -0,0 +1,85 @@
+package utils;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Valida os cabeçalhos internos de identidade assinados pelo gateway (mesmo formato de filter.TrustedIdentityHeaders).
+ * Cópia de security.identity.TrustedIdentityHeaders do user: qualquer mudança no formato precisa ser feita nas três cópias ao mesmo tempo.
+ */
+public final class TrustedIdentityHeaders {
+
+    public static final String SUBJECT = "X-Auth-Subject";
+    public static final String ROLE = "X-Auth-Role";
+    public static final String ISSUED_AT = "X-Auth-Issued-At";
+    public static final String SIGNATURE = "X-Auth-Signature";
+
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final long maxAgeSeconds;
+    private final ThreadLocal<Mac> macs;
+
+    public TrustedIdentityHeaders(byte[] secret, long maxAgeSeconds) {
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Retorna a identidade se os cabeçalhos estiverem presentes, dentro da janela de validade e com MAC correto.
+     * Caso contrário retorna null.
+     */
+    public TrustedIdentity resolve(HttpHeaders headers) {
+        String signature = headers.getFirst(SIGNATURE);
+        if (signature == null) {
+            return null;
+        }
+        String subject = headers.getFirst(SUBJECT);
+        String role = headers.getFirst(ROLE);
+        String issuedAtHeader = headers.getFirst(ISSUED_AT);
+        if (subject == null || role == null || issuedAtHeader == null) {
+            return null;
+        }
+
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(issuedAtHeader);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - issuedAt) > maxAgeSeconds) {
+            return null;
+        }
+
+        byte[] expected = Arrays.copyOf(mac(subject, role, issuedAt), SIGNATURE_BYTES);
+        byte[] received;
+        try {
+            received = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return MessageDigest.isEqual(expected, received) ? new TrustedIdentity(subject, role) : null;
+    }
+
+    private byte[] mac(String subject, String role, long issuedAt) {
+        return macs.get().doFinal((subject + '\n' + role + '\n' + issuedAt).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+}
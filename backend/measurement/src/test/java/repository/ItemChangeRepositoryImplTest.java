@@ -0,0 +1,156 @@
+package repository;
+
+import dto.ItemChangeDTO;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Executa o SQL do feed de alterações num Postgres embutido criado pelo init.sql do serviço.
+ */
+class ItemChangeRepositoryImplTest {
+
+    private static EmbeddedPostgres postgres;
+    private static ItemChangeRepositoryImpl repository;
+
+    @BeforeAll
+    static void startDatabase() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        execute(Files.readString(Path.of("init.sql")));
+        DatabaseClient databaseClient = DatabaseClient.create(new PostgresqlConnectionFactory(
+                PostgresqlConnectionConfiguration.builder()
+                        .host("localhost")
+                        .port(postgres.getPort())
+                        .database("postgres")
+                        .username("postgres")
+                        .build()));
+        repository = new ItemChangeRepositoryImpl(databaseClient);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void clearItens() throws SQLException {
+        execute("TRUNCATE app.itens, app.item_tombstones");
+    }
+
+    @Test
+    void createdAndDeletedItemsComeInRevisionOrder() throws SQLException {
+        long first = insert("Massa", "kg");
+        long second = insert("Volume", "l");
+
+        assertEquals(1L, repository.deleteWithTombstone(first).block());
+
+        List<ItemChangeDTO> changes = changesSince(0, 100);
+        assertEquals(2, changes.size());
+        assertChange(changes.get(0), second, false);
+        assertChange(changes.get(1), first, true);
+        assertTrue(changes.get(0).getRevision() < changes.get(1).getRevision());
+        assertEquals("Volume", changes.get(0).getName());
+
+        // Retomando da revisão da primeira linha, só a remoção
+        List<ItemChangeDTO> resumed = changesSince(changes.get(0).getRevision(), 100);
+        assertEquals(1, resumed.size());
+        assertChange(resumed.get(0), first, true);
+    }
+
+    @Test
+    void deletingAMissingItemWritesNoTombstone() {
+        assertEquals(0L, repository.deleteWithTombstone(999L).block());
+        assertTrue(changesSince(0, 100).isEmpty());
+    }
+
+    @Test
+    void feedStopsBeforeTransactionsThatAreStillOpen() throws SQLException {
+        long committedBefore = insert("Antes", "kg");
+
+        try (Connection open = postgres.getPostgresDatabase().getConnection()) {
+            open.setAutoCommit(false);
+            long pending = insert(open, "Pendente", "kg");
+            // Confirmada depois da transação aberta, mas com revisão maior que a dela
+            long committedAfter = insert("Depois", "kg");
+
+            List<ItemChangeDTO> whileOpen = changesSince(0, 100);
+            assertEquals(1, whileOpen.size());
+            assertChange(whileOpen.get(0), committedBefore, false);
+
+            open.commit();
+
+            List<ItemChangeDTO> afterCommit = changesSince(whileOpen.get(0).getRevision(), 100);
+            assertEquals(2, afterCommit.size());
+            assertChange(afterCommit.get(0), pending, false);
+            assertChange(afterCommit.get(1), committedAfter, false);
+        }
+    }
+
+    @Test
+    void limitNeverSplitsARevision() throws SQLException {
+        // Um INSERT multi-linha grava as três linhas com a mesma revisão
+        execute("INSERT INTO app.itens (name, unit) VALUES ('A', 'kg'), ('B', 'kg'), ('C', 'kg')");
+        long later = insert("D", "kg");
+
+        List<ItemChangeDTO> firstPage = changesSince(0, 1);
+        assertEquals(3, firstPage.size());
+        assertEquals(1, firstPage.stream().map(ItemChangeDTO::getRevision).distinct().count());
+
+        List<ItemChangeDTO> secondPage = changesSince(firstPage.get(0).getRevision(), 1);
+        assertEquals(1, secondPage.size());
+        assertChange(secondPage.get(0), later, false);
+    }
+
+    private static List<ItemChangeDTO> changesSince(long since, int limit) {
+        return repository.findChangesSince(since, limit).collectList().block();
+    }
+
+    private static void assertChange(ItemChangeDTO change, long id, boolean deleted) {
+        assertEquals(id, change.getId());
+        assertEquals(deleted, change.isDeleted());
+        if (deleted) {
+            assertNull(change.getName());
+            assertNull(change.getUnit());
+        }
+    }
+
+    private static long insert(String name, String unit) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+            return insert(connection, name, unit);
+        }
+    }
+
+    private static long insert(Connection connection, String name, String unit) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet inserted = statement.executeQuery(
+                     "INSERT INTO app.itens (name, unit) VALUES ('" + name + "', '" + unit + "') RETURNING id")) {
+            inserted.next();
+            return inserted.getLong(1);
+        }
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
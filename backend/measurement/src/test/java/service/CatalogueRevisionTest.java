@@ -0,0 +1,84 @@
+package service;
+
+import message.producer.CacheInvalidationProducer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CatalogueRevisionTest {
+
+    private static final String ETAG = "\"abc-7\"";
+
+    @Test
+    void matchesTheExactTag() {
+        assertTrue(CatalogueRevision.matches("\"abc-7\"", ETAG));
+        assertFalse(CatalogueRevision.matches("\"abc-8\"", ETAG));
+        // Sem aspas não é o mesmo ETag
+        assertFalse(CatalogueRevision.matches("abc-7", ETAG));
+    }
+
+    @Test
+    void matchesWeakTags() {
+        assertTrue(CatalogueRevision.matches("W/\"abc-7\"", ETAG));
+        assertFalse(CatalogueRevision.matches("W/\"abc-6\"", ETAG));
+    }
+
+    @Test
+    void matchesAnyTagInACommaSeparatedList() {
+        assertTrue(CatalogueRevision.matches("\"abc-5\", W/\"abc-7\"", ETAG));
+        assertTrue(CatalogueRevision.matches("\"abc-5\",\"abc-7\"", ETAG));
+        assertFalse(CatalogueRevision.matches("\"abc-5\", \"abc-6\"", ETAG));
+    }
+
+    @Test
+    void wildcardMatchesAnyTag() {
+        assertTrue(CatalogueRevision.matches("*", ETAG));
+        assertTrue(CatalogueRevision.matches(" * ", ETAG));
+    }
+
+    @Test
+    void missingHeaderNeverMatches() {
+        assertFalse(CatalogueRevision.matches(null, ETAG));
+        assertFalse(CatalogueRevision.matches("", ETAG));
+    }
+
+    @Test
+    void advanceChangesTheTagWithoutNotifyingOtherReplicas() {
+        CacheInvalidationProducer producer = mock(CacheInvalidationProducer.class);
+        CatalogueRevision revision = new CatalogueRevision(producer);
+        String before = revision.eTag();
+
+        revision.advance();
+
+        assertNotEquals(before, revision.eTag());
+        assertFalse(CatalogueRevision.matches(before, revision.eTag()));
+        verify(producer, never()).invalidateCatalogue();
+    }
+
+    @Test
+    void itemsChangedAdvancesAndNotifiesOtherReplicas() {
+        CacheInvalidationProducer producer = mock(CacheInvalidationProducer.class);
+        CatalogueRevision revision = new CatalogueRevision(producer);
+        String before = revision.eTag();
+
+        revision.itemsChanged();
+
+        assertNotEquals(before, revision.eTag());
+        verify(producer).invalidateCatalogue();
+    }
+
+    @Test
+    void restartedReplicaDoesNotValidateOldTags() {
+        CacheInvalidationProducer producer = mock(CacheInvalidationProducer.class);
+        CatalogueRevision first = new CatalogueRevision(producer);
+        CatalogueRevision restarted = new CatalogueRevision(producer);
+
+        // As duas começam na revisão 0, mas com identificadores de execução diferentes
+        assertNotEquals(first.eTag(), restarted.eTag());
+    }
+}
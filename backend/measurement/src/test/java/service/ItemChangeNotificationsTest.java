@@ -0,0 +1,186 @@
+package service;
+
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Escuta o canal item_changes de um Postgres embutido criado pelo init.sql do serviço.
+ */
+class ItemChangeNotificationsTest {
+
+    private static EmbeddedPostgres postgres;
+    private static ItemChangeNotifications notifications;
+
+    private final BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+    private Disposable subscription;
+
+    @BeforeAll
+    static void startListening() throws IOException, SQLException, InterruptedException {
+        postgres = EmbeddedPostgres.start();
+        execute(Files.readString(Path.of("init.sql")));
+        notifications = new ItemChangeNotifications(new PostgresqlConnectionFactory(
+                PostgresqlConnectionConfiguration.builder()
+                        .host("localhost")
+                        .port(postgres.getPort())
+                        .database("postgres")
+                        .username("postgres")
+                        .build()));
+        notifications.start();
+
+        // O LISTEN é assíncrono: grava até o primeiro aviso chegar
+        BlockingQueue<Long> probe = new LinkedBlockingQueue<>();
+        Disposable probing = notifications.changes().subscribe(probe::add);
+        Long first = null;
+        for (int attempt = 0; attempt < 100 && first == null; attempt++) {
+            execute("INSERT INTO app.itens (name, unit) VALUES ('sonda-" + attempt + "', 'un')");
+            first = probe.poll(100, TimeUnit.MILLISECONDS);
+        }
+        probing.dispose();
+        assertNotNull(first, "Sem avisos do canal item_changes");
+    }
+
+    @AfterAll
+    static void stopListening() throws IOException {
+        notifications.stop();
+        postgres.close();
+    }
+
+    @BeforeEach
+    void subscribe() {
+        subscription = notifications.changes().subscribe(received::add);
+    }
+
+    @AfterEach
+    void unsubscribe() {
+        subscription.dispose();
+    }
+
+    @Test
+    void bulkInsertSendsOneNotificationWithItsRevision() throws Exception {
+        execute("INSERT INTO app.itens (name, unit) SELECT 'lote-' || n, 'un' FROM generate_series(1, 2000) n");
+        long bulkRevision = query("SELECT DISTINCT revision FROM app.itens WHERE name LIKE 'lote-%'");
+        long marker = insertMarker();
+
+        assertEquals(List.of(bulkRevision, marker), receiveUntil(marker));
+    }
+
+    @Test
+    void statementsThatChangeNothingSendNoNotification() throws Exception {
+        execute("INSERT INTO app.itens (name, unit) VALUES ('repetido', 'un')");
+        long existing = query("SELECT revision FROM app.itens WHERE name = 'repetido'");
+        execute("INSERT INTO app.itens (name, unit) VALUES ('repetido', 'un') ON CONFLICT (name, unit) DO NOTHING");
+        execute("DELETE FROM app.itens WHERE id = -1");
+        long marker = insertMarker();
+
+        assertEquals(List.of(existing, marker), receiveUntil(marker));
+    }
+
+    @Test
+    void deleteSendsTheRevisionOfItsTransaction() throws Exception {
+        execute("INSERT INTO app.itens (name, unit) VALUES ('removido', 'un')");
+        long created = query("SELECT revision FROM app.itens WHERE name = 'removido'");
+        execute("WITH deleted AS (DELETE FROM app.itens WHERE name = 'removido' RETURNING id) "
+                + "INSERT INTO app.item_tombstones (item_id) SELECT id FROM deleted");
+        long deleted = query("SELECT max(revision) FROM app.item_tombstones");
+        long marker = insertMarker();
+
+        assertEquals(List.of(created, deleted, marker), receiveUntil(marker));
+    }
+
+    @Test
+    void slowSubscriberKeepsOnlyTheLatestRevision() throws Exception {
+        List<Long> slowReceived = new CopyOnWriteArrayList<>();
+        List<Throwable> slowErrors = new CopyOnWriteArrayList<>();
+        BaseSubscriber<Long> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Nenhuma demanda até o fim das gravações
+            }
+
+            @Override
+            protected void hookOnNext(Long revision) {
+                slowReceived.add(revision);
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                slowErrors.add(throwable);
+            }
+        };
+        notifications.changes().subscribe(slow);
+
+        for (int i = 0; i < 300; i++) {
+            execute("INSERT INTO app.itens (name, unit) VALUES ('lento-" + i + "', 'un')");
+        }
+        long marker = insertMarker();
+        receiveUntil(marker);
+        slow.request(10);
+        slow.dispose();
+
+        assertTrue(slowErrors.isEmpty());
+        assertEquals(List.of(marker), slowReceived);
+    }
+
+    private static long insertMarker() throws SQLException {
+        return query("INSERT INTO app.itens (name, unit) VALUES ('marca-' || gen_random_uuid(), 'un') RETURNING revision");
+    }
+
+    /**
+     * Revisões recebidas até a do marcador, inclusive; o aviso do marcador é o último da sequência.
+     */
+    private List<Long> receiveUntil(long marker) throws InterruptedException {
+        List<Long> revisions = new ArrayList<>();
+        Long revision;
+        do {
+            revision = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull(revision, "Aviso do marcador não recebido");
+            revisions.add(revision);
+        } while (revision != marker);
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+        return revisions;
+    }
+
+    private static long query(String sql) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemInsertCoalescerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private ItemInsertCoalescer coalescer;
+
+    @AfterEach
+    void stop() {
+        coalescer.stop();
+    }
+
+    @Test
+    void eachCallerGetsTheIdOfItsOwnRow() {
+        // Lote fechado pelo tamanho; o banco devolve as linhas em outra ordem e descarta o item repetido
+        start(3, 60_000);
+        when(itemRepository.insertReturning(anyList()))
+                .thenReturn(Flux.just(ItemServiceTest.item(2L, "Volume", "l"), ItemServiceTest.item(1L, "Massa", "kg")));
+
+        Mono<Long> massa = coalescer.insert(new Item("Massa", "kg"));
+        Mono<Long> volume = coalescer.insert(new Item("Volume", "l"));
+        Mono<Long> repeated = coalescer.insert(new Item("Massa", "kg"));
+
+        StepVerifier.create(massa).expectNext(1L).verifyComplete();
+        StepVerifier.create(volume).expectNext(2L).verifyComplete();
+        StepVerifier.create(repeated).expectComplete().verify(TIMEOUT);
+        verify(itemRepository, times(1)).insertReturning(anyList());
+    }
+
+    @Test
+    void existingItemCompletesEmpty() {
+        start(100, 1);
+        when(itemRepository.insertReturning(anyList())).thenReturn(Flux.empty());
+
+        StepVerifier.create(coalescer.insert(new Item("Massa", "kg")))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void failedBatchIsRetriedOneByOne() {
+        start(2, 60_000);
+        DataIntegrityViolationException failure = new DataIntegrityViolationException("valor longo demais");
+        when(itemRepository.insertReturning(anyList())).thenAnswer(invocation -> {
+            List<Item> itens = invocation.getArgument(0);
+            if (itens.size() > 1 || itens.get(0).getName().equals("Inválido")) {
+                return Flux.error(failure);
+            }
+            return Flux.just(ItemServiceTest.item(5L, itens.get(0).getName(), itens.get(0).getUnit()));
+        });
+
+        Mono<Long> valid = coalescer.insert(new Item("Massa", "kg"));
+        Mono<Long> invalid = coalescer.insert(new Item("Inválido", "kg"));
+
+        // O erro chega só a quem o causou
+        StepVerifier.create(valid).expectNext(5L).verifyComplete();
+        StepVerifier.create(invalid).expectErrorMatches(e -> e == failure).verify(TIMEOUT);
+        // Um lote inteiro e depois os dois itens separados
+        verify(itemRepository, times(3)).insertReturning(anyList());
+    }
+
+    @Test
+    void writerKeepsRunningAfterAFailedBatch() {
+        start(1, 60_000);
+        when(itemRepository.insertReturning(anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("conexão perdida")))
+                .thenReturn(Flux.just(ItemServiceTest.item(8L, "Massa", "kg")));
+
+        StepVerifier.create(coalescer.insert(new Item("Massa", "kg")))
+                .expectError(IllegalStateException.class)
+                .verify(TIMEOUT);
+        StepVerifier.create(coalescer.insert(new Item("Massa", "kg")))
+                .expectNext(8L)
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void batchSizesAreRecorded() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        coalescer = new ItemInsertCoalescer(itemRepository, meterRegistry, 2, 60_000, 1);
+        coalescer.start();
+        when(itemRepository.insertReturning(anyList())).thenReturn(Flux.empty());
+
+        Mono<Long> first = coalescer.insert(new Item("A", "kg"));
+        Mono<Long> second = coalescer.insert(new Item("B", "kg"));
+        StepVerifier.create(first.then(second)).expectComplete().verify(TIMEOUT);
+
+        assertEquals(2.0, meterRegistry.summary("items.insert.batch.size").totalAmount());
+    }
+
+    private void start(int maxBatch, long windowMs) {
+        coalescer = new ItemInsertCoalescer(itemRepository, new SimpleMeterRegistry(), maxBatch, windowMs, 1);
+        coalescer.start();
+    }
+}
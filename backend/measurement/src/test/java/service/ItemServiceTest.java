@@ -0,0 +1,231 @@
+package service;
+
+import dto.ItemDTO;
+import dto.ItemImportBatchDTO;
+import dto.ItemLookupDTO;
+import message.producer.CacheInvalidationProducer;
+import message.service.PermissionService;
+import model.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemServiceTest {
+
+    private static final String TOKEN = "Bearer token";
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private PermissionService permissionService;
+    @Mock
+    private CacheInvalidationProducer cacheInvalidationProducer;
+    @Mock
+    private ItemChangeNotifications itemChangeNotifications;
+    @Mock
+    private ItemInsertCoalescer itemInsertCoalescer;
+
+    private CatalogueRevision catalogueRevision;
+    private ItemService itemService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(permissionService.hasPermission(anyString(), anyString())).thenReturn(Mono.just(true));
+        catalogueRevision = new CatalogueRevision(cacheInvalidationProducer);
+        itemService = new ItemService(itemRepository, permissionService, catalogueRevision, itemChangeNotifications,
+                itemInsertCoalescer, 500, 2, 15);
+    }
+
+    @Test
+    void getAllItensAnswersNotModifiedWithoutQuerying() {
+        String eTag = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.getAllItens(TOKEN, "W/" + eTag))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                    assertEquals(eTag, response.getHeaders().getETag());
+                })
+                .verifyComplete();
+
+        verify(itemRepository, never()).findAll();
+    }
+
+    @Test
+    void getItemPageAndGetItemAnswerNotModifiedWithoutQuerying() {
+        String eTag = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.getItemPage(null, null, TOKEN, eTag))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
+                .verifyComplete();
+        StepVerifier.create(itemService.getItem(1L, TOKEN, "\"outro\", " + eTag))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
+                .verifyComplete();
+
+        verify(itemRepository, never()).findPageAfter(anyLong(), anyInt());
+        verify(itemRepository, never()).findById(any(Long.class));
+    }
+
+    @Test
+    void staleTagGetsTheFullResponseWithTheCurrentTag() {
+        String stale = catalogueRevision.eTag();
+        catalogueRevision.advance();
+        when(itemRepository.findAll()).thenReturn(Flux.just(item(1L, "Massa", "kg")));
+
+        StepVerifier.create(itemService.getAllItens(TOKEN, stale))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals(catalogueRevision.eTag(), response.getHeaders().getETag());
+                    assertEquals(1, ((Item[]) response.getBody()).length);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void createChangesTheETag() {
+        when(itemInsertCoalescer.insert(any(Item.class))).thenReturn(Mono.just(10L));
+        String before = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.createItem(new ItemDTO("Massa", "kg"), TOKEN))
+                .assertNext(response -> assertEquals(HttpStatus.CREATED, response.getStatusCode()))
+                .verifyComplete();
+
+        assertNotEquals(before, catalogueRevision.eTag());
+        verify(cacheInvalidationProducer).invalidateCatalogue();
+    }
+
+    @Test
+    void duplicateCreateKeepsTheETag() {
+        when(itemInsertCoalescer.insert(any(Item.class))).thenReturn(Mono.empty());
+        String before = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.createItem(new ItemDTO("Massa", "kg"), TOKEN))
+                .assertNext(response -> assertEquals(HttpStatus.CONFLICT, response.getStatusCode()))
+                .verifyComplete();
+
+        assertEquals(before, catalogueRevision.eTag());
+    }
+
+    @Test
+    void importChangesTheETagOnlyForBatchesThatInserted() {
+        // Lotes de 2: o primeiro insere um item, o segundo só traz duplicados
+        when(itemRepository.insertIgnoringDuplicates(anyList())).thenReturn(Mono.just(1L), Mono.just(0L));
+        String before = catalogueRevision.eTag();
+
+        Flux<ItemDTO> itens = Flux.just(new ItemDTO("A", "kg"), new ItemDTO("B", "kg"), new ItemDTO("C", "kg"));
+        StepVerifier.create(importBody(itens))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertNotEquals(before, catalogueRevision.eTag());
+        verify(cacheInvalidationProducer).invalidateCatalogue();
+    }
+
+    @Test
+    void deleteChangesTheETagOnlyWhenSomethingWasDeleted() {
+        when(itemRepository.deleteWithTombstone(1L)).thenReturn(Mono.just(1L));
+        when(itemRepository.deleteWithTombstone(2L)).thenReturn(Mono.just(0L));
+        String before = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.deleteItem(2L, TOKEN))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode()))
+                .verifyComplete();
+        assertEquals(before, catalogueRevision.eTag());
+
+        StepVerifier.create(itemService.deleteItem(1L, TOKEN))
+                .assertNext(response -> assertEquals(HttpStatus.OK, response.getStatusCode()))
+                .verifyComplete();
+        assertNotEquals(before, catalogueRevision.eTag());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getItensFollowsTheRequestedOrderWithDuplicatesAndMisses() {
+        // O banco devolve em qualquer ordem, e cada id só uma vez
+        when(itemRepository.findAllByIdIn(any(Long[].class)))
+                .thenReturn(Flux.just(item(7L, "Volume", "l"), item(3L, "Massa", "kg")));
+
+        StepVerifier.create(itemService.getItens(List.of(3L, 99L, 7L, 3L), TOKEN, null))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    List<ItemLookupDTO> body = (List<ItemLookupDTO>) response.getBody();
+                    assertEquals(List.of(3L, 99L, 7L, 3L), body.stream().map(ItemLookupDTO::getId).toList());
+                    assertEquals(List.of(true, false, true, true), body.stream().map(ItemLookupDTO::isFound).toList());
+                    assertEquals("Massa", body.get(0).getName());
+                    assertNull(body.get(1).getName());
+                    assertEquals("Volume", body.get(2).getName());
+                    assertEquals("Massa", body.get(3).getName());
+                })
+                .verifyComplete();
+
+        // Ids repetidos vão uma vez só na consulta
+        ArgumentCaptor<Long[]> ids = ArgumentCaptor.forClass(Long[].class);
+        verify(itemRepository).findAllByIdIn(ids.capture());
+        assertArrayEquals(new Long[]{3L, 99L, 7L}, ids.getValue());
+    }
+
+    @Test
+    void getItensRejectsEmptyOversizedOrNullIdLists() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 1001).boxed().toList();
+        List<Long> withNull = new ArrayList<>(List.of(1L));
+        withNull.add(null);
+
+        for (List<Long> ids : List.of(List.<Long>of(), tooMany, withNull)) {
+            StepVerifier.create(itemService.getItens(ids, TOKEN, null))
+                    .assertNext(response -> assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode()))
+                    .verifyComplete();
+        }
+        verify(itemRepository, never()).findAllByIdIn(any(Long[].class));
+    }
+
+    @Test
+    void getItensAnswersNotModifiedWithoutQuerying() {
+        String eTag = catalogueRevision.eTag();
+
+        StepVerifier.create(itemService.getItens(List.of(1L, 2L), TOKEN, eTag))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode()))
+                .verifyComplete();
+
+        verify(itemRepository, never()).findAllByIdIn(any(Long[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<ItemImportBatchDTO> importBody(Flux<ItemDTO> itens) {
+        ResponseEntity<?> response = itemService.importItens(itens, TOKEN).block();
+        return (Flux<ItemImportBatchDTO>) response.getBody();
+    }
+
+    static Item item(Long id, String name, String unit) {
+        Item item = new Item(name, unit);
+        ReflectionTestUtils.setField(item, "id", id);
+        return item;
+    }
+}
@@ -20,6 +20,13 @@ CREATE TABLE IF NOT EXISTS role_permissions (
     UNIQUE(role, action)
     );
 
+-- Versão dos snapshots de permissões. Em um banco novo começa no instante atual em milissegundos, acima das
+-- versões que o user gerava pelo relógio, para que os consumidores não descartem os snapshots seguintes.
+-- Idempotente: pode ser executado de novo em um banco existente para criar a sequência.
+CREATE SEQUENCE IF NOT EXISTS permission_snapshot_version;
+SELECT setval('permission_snapshot_version', (EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::bigint)
+WHERE NOT (SELECT is_called FROM permission_snapshot_version);
+
 INSERT INTO role_permissions(role, action, active) VALUES ('ADMIN', 'CREATE_USER', true);
 INSERT INTO role_permissions(role, action, active) VALUES ('ADMIN', 'READ_USER', true);
 INSERT INTO users(name, email, password, role, secret_phrase) VALUES ('Admin', 'admin@email.com', '$2a$12$OE54CUDpJLnvX7HSX63b6.yyW6V9rmEBhYJTUS70bt5TmIN5RLbom', 'ADMIN', '$2a$12$SUFMVPTI/Gyfa/.VKJeH..6SgtmHHnzNWa36JlD3qT7Twj8IqyTQu');
@@ -0,0 +1,53 @@
+package config;
+
+import io.micrometer.context.ContextRegistry;
+import org.slf4j.MDC;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Identificador de correlação da requisição: chega no cabeçalho X-Correlation-Id (posto pelo gateway)
+ * e viaja no contexto do Reactor. Só vai para o MDC nos pontos de log: os operadores handle e tap restauram
+ * o MDC a partir do contexto durante a chamada, sem o hook global de propagação automática, que faria isso
+ * em cada sinal de cada operador de toda a aplicação.
+ */
+public final class CorrelationId {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String KEY = "correlationId";
+
+    private static final Mono<Boolean> LOG_TRIGGER = Mono.just(true);
+
+    private CorrelationId() {
+    }
+
+    /**
+     * Deve ser chamado antes de a aplicação subir: ensina o Reactor a copiar a chave do contexto para o MDC
+     * nos operadores handle e tap.
+     */
+    public static void registerMdcAccessor() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(KEY,
+                () -> MDC.get(KEY),
+                value -> MDC.put(KEY, value),
+                () -> MDC.remove(KEY));
+    }
+
+    /**
+     * Executa a chamada de log, com o correlationId no MDC, quando o Mono for assinado.
+     */
+    public static Mono<Void> log(Runnable statement) {
+        return LOG_TRIGGER.handle((ignored, sink) -> statement.run());
+    }
+
+    /**
+     * Para usar em handle: executa a chamada de log, com o correlationId no MDC, e repassa o valor.
+     */
+    public static <T> BiConsumer<T, SynchronousSink<T>> logging(Runnable statement) {
+        return (value, sink) -> {
+            statement.run();
+            sink.next(value);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package config;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Usa o X-Correlation-Id recebido (ou gera um novo) e o coloca no contexto do Reactor e na resposta.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter implements WebFilter {
+
+    // O valor vai para os logs: só aceita identificadores curtos e sem caracteres de controle
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String received = exchange.getRequest().getHeaders().getFirst(CorrelationId.HEADER);
+        String correlationId = received != null && VALID_ID.matcher(received).matches()
+                ? received
+                : UUID.randomUUID().toString();
+        exchange.getResponse().getHeaders().set(CorrelationId.HEADER, correlationId);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(CorrelationId.KEY, correlationId));
+    }
+}
@@ -1,17 +1,21 @@
 package config;
 
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DatabaseConfigLogger {
 
+    private static final Logger log = LoggerFactory.getLogger(DatabaseConfigLogger.class);
+
     @Value("${spring.r2dbc.url}")
     private String r2dbcUrl;
 
     @PostConstruct
     public void printDatabaseUrl() {
-        System.out.println("R2DBC Connection URL: " + r2dbcUrl);
+        log.info("R2DBC Connection URL: {}", r2dbcUrl);
     }
 }
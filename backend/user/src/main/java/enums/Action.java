@@ -0,0 +1,14 @@
+package enums;
+
+
+/**
+ * Ações controladas por role_permissions. A ordem define o bit de cada ação na matriz de permissões.
+ */
+public enum Action {
+    CREATE_ITEM,
+    READ_ITEM,
+    DELETE_ITEM,
+    CREATE_USER,
+    READ_USER,
+    DELETE_USER
+}
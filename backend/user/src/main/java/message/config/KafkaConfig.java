@@ -1,6 +1,11 @@
 package message.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import message.dto.CacheInvalidationDTO;
 import message.dto.PermissionEventDTO;
+import message.dto.PermissionSnapshotDTO;
+import message.producer.PermissionProducer;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -8,24 +13,39 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.kafka.annotation.EnableKafka;
-import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
-@EnableKafka
 public class KafkaConfig {
 
+    public static final String CACHE_INVALIDATION_TOPIC = "cache-invalidation";
+
+    /**
+     * Identifica esta réplica: dá nome ao seu grupo de consumo de invalidações e marca a origem das que ela publica.
+     */
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
-    @Value("${spring.kafka.consumer.group-id}")
-    private String consumerGroupId;
+    @Value("${kafka.topics.permissions-update.partitions:6}")
+    private int permissionsUpdatePartitions;
+
+    public KafkaConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     @Bean
     public ProducerFactory<String, PermissionEventDTO> producerFactory() {
@@ -34,53 +54,102 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, org.springframework.kafka.support.serializer.JsonSerializer.class);
+        // Idempotência garante que retentativas não reordenem eventos da mesma chave dentro da partição
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    @Bean
+    public NewTopic permissionsUpdateTopic() {
+        return TopicBuilder.name(PermissionProducer.PERMISSIONS_UPDATE_TOPIC)
+                .partitions(permissionsUpdatePartitions)
+                .build();
+    }
+
     @Bean
     public KafkaTemplate<String, PermissionEventDTO> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        return instrumentedTemplate(producerFactory());
     }
 
     @Bean
-    public ConsumerFactory<String, PermissionEventDTO> consumerFactory() {
+    public ProducerFactory<String, PermissionSnapshotDTO> snapshotProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
-
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-
-        configProps.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
-
-        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "message.dto.PermissionEventDTO");
-
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, org.springframework.kafka.support.serializer.JsonSerializer.class);
+        // O snapshot carrega todas as permissões em um único registro
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd");
+        return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, PermissionEventDTO> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, PermissionEventDTO> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
-        return factory;
+    public KafkaTemplate<String, PermissionSnapshotDTO> snapshotKafkaTemplate() {
+        return instrumentedTemplate(snapshotProducerFactory());
     }
 
+    /**
+     * Consumidor reativo de permissions-all: offsets só são confirmados depois que o snapshot foi enviado.
+     */
     @Bean
-    public ConsumerFactory<String, String> stringConsumerFactory() {
+    public ReceiverOptions<String, String> permissionRequestReceiverOptions() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "user-group");
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return ReceiverOptions.<String, String>create(configProps)
+                .commitInterval(Duration.ofSeconds(1))
+                .commitBatchSize(100)
+                .subscription(Collections.singleton("permissions-all"));
+    }
+
+    @Bean
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(CACHE_INVALIDATION_TOPIC)
+                .partitions(1)
+                .config("retention.ms", "3600000")
+                .build();
+    }
+
+    @Bean
+    public KafkaTemplate<String, CacheInvalidationDTO> cacheInvalidationKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, org.springframework.kafka.support.serializer.JsonSerializer.class);
+        return instrumentedTemplate(new DefaultKafkaProducerFactory<>(configProps));
     }
 
+    /**
+     * Cada réplica consome todas as invalidações com um grupo próprio. Começa do fim do tópico:
+     * uma réplica nova sobe com os caches vazios e não precisa do histórico.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> stringKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(stringConsumerFactory());
-        return factory;
+    public ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, CACHE_INVALIDATION_TOPIC + "-user-" + INSTANCE_ID);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "message.dto.CacheInvalidationDTO");
+        return ReceiverOptions.<String, CacheInvalidationDTO>create(configProps)
+                .commitInterval(Duration.ofSeconds(1))
+                .subscription(Collections.singleton(CACHE_INVALIDATION_TOPIC));
+    }
+
+    /**
+     * Liga as métricas nativas do produtor (kafka.producer.*: envios, erros, retentativas). O tempo até o ack
+     * de cada envio já é medido pelo próprio KafkaTemplate (spring.kafka.template, tag "name" = bean do template).
+     */
+    private <V> KafkaTemplate<String, V> instrumentedTemplate(ProducerFactory<String, V> producerFactory) {
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new KafkaTemplate<>(producerFactory);
     }
 }
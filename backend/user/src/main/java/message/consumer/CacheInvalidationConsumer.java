@@ -0,0 +1,75 @@
+package message.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import message.config.KafkaConfig;
+import message.dto.CacheInvalidationDTO;
+import message.service.PermissionService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOptions;
+import service.UserDetailsCache;
+
+/**
+ * Aplica nos caches locais (usuários e permissões) as invalidações publicadas pelas outras réplicas do user.
+ */
+@Service
+public class CacheInvalidationConsumer {
+
+    private final UserDetailsCache userDetailsCache;
+    private final PermissionService permissionService;
+    private final ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions;
+    private final MeterRegistry meterRegistry;
+
+    private Disposable pipeline;
+
+    public CacheInvalidationConsumer(UserDetailsCache userDetailsCache, PermissionService permissionService,
+                                     ReceiverOptions<String, CacheInvalidationDTO> cacheInvalidationReceiverOptions,
+                                     MeterRegistry meterRegistry) {
+        this.userDetailsCache = userDetailsCache;
+        this.permissionService = permissionService;
+        this.cacheInvalidationReceiverOptions = cacheInvalidationReceiverOptions;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pipeline = ReactiveConsumerPipeline.start(KafkaConfig.CACHE_INVALIDATION_TOPIC, cacheInvalidationReceiverOptions, meterRegistry, this::handleInvalidation);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    public Mono<Void> handleInvalidation(CacheInvalidationDTO invalidation) {
+        // A réplica de origem já invalidou o próprio cache ao publicar
+        if (KafkaConfig.INSTANCE_ID.equals(invalidation.getOrigin())) {
+            return Mono.empty();
+        }
+        if (invalidation.getUsers() != null) {
+            invalidation.getUsers().forEach(userDetailsCache::evictLocal);
+        }
+        if (invalidation.getPermissions() == null) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(invalidation.getPermissions())
+                .concatMap(this::refreshPermission)
+                .then();
+    }
+
+    // A matriz de permissões não tem entradas a descartar: a permissão alterada é relida do banco
+    private Mono<Void> refreshPermission(String key) {
+        int separator = key.indexOf(':');
+        if (separator < 0) {
+            return permissionService.reloadLocal();
+        }
+        return permissionService.refreshLocal(key.substring(0, separator), key.substring(separator + 1));
+    }
+}
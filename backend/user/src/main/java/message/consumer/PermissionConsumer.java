@@ -2,38 +2,63 @@ package message.consumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import message.dto.PermissionEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import message.service.PermissionService;
-import org.springframework.kafka.annotation.KafkaListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOptions;
 
 @Service
 public class PermissionConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionConsumer.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     private final PermissionService permissionService;
+    private final ReceiverOptions<String, String> permissionRequestReceiverOptions;
+    private final MeterRegistry meterRegistry;
+
+    private Disposable pipeline;
 
-    public PermissionConsumer(PermissionService permissionService) {
+    public PermissionConsumer(PermissionService permissionService,
+                              ReceiverOptions<String, String> permissionRequestReceiverOptions,
+                              MeterRegistry meterRegistry) {
         this.permissionService = permissionService;
+        this.permissionRequestReceiverOptions = permissionRequestReceiverOptions;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pipeline = ReactiveConsumerPipeline.start("permissions-all", permissionRequestReceiverOptions, meterRegistry, this::handlePermissionRequest);
     }
 
-    @KafkaListener(
-            topics = "permissions-all",
-            groupId = "user-group",
-            containerFactory = "stringKafkaListenerContainerFactory"
-    )
-    public void handlePermissionRequest(String message) {
+    @PreDestroy
+    public void stop() {
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    public Mono<Void> handlePermissionRequest(String message) {
+        String replyTopic;
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
             JsonNode jsonNode = objectMapper.readTree(message);
-            String replyTopic = jsonNode.get("replyTopic").asText();
-
-            System.out.println("📡 Solicitação recebida para enviar todas as permissões. Responder para: " + replyTopic);
-            permissionService.sendAllPermissions(replyTopic).subscribe();
-            System.out.println("Tentando em handle consumer");
+            replyTopic = jsonNode.get("replyTopic").asText();
         } catch (Exception e) {
-            System.out.println("falahando em handle permission consumer");
-            System.err.println("❌ Erro ao processar solicitação de permissões: " + e.getMessage());
+            log.error("Erro ao processar solicitação de permissões: {}", e.getMessage());
+            return Mono.empty();
         }
+
+        log.info("Solicitação recebida para enviar todas as permissões. Responder para: {}", replyTopic);
+        return permissionService.sendAllPermissions(replyTopic);
     }
 
 }
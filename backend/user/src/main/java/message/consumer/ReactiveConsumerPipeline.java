@@ -0,0 +1,106 @@
+package message.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.MicrometerConsumerListener;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Pipeline reativo de consumo: cada partição é processada em ordem, um registro por vez, e o offset só é
+ * confirmado depois que o processamento termina. Sem demanda a jusante o reactor-kafka pausa as partições,
+ * então o broker nunca entrega mais do que o serviço consegue processar.
+ */
+final class ReactiveConsumerPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveConsumerPipeline.class);
+
+    private static final int MAX_PARTITIONS = 256;
+    private static final int HANDLER_RETRIES = 3;
+
+    private ReactiveConsumerPipeline() {
+    }
+
+    /**
+     * @param name tópico consumido, usado nos logs e como tag "topic" das métricas
+     */
+    static <V> Disposable start(String name, ReceiverOptions<String, V> options, MeterRegistry meterRegistry,
+                                Function<V, Mono<Void>> handler) {
+        ConsumerMeters meters = new ConsumerMeters(name, meterRegistry);
+        return KafkaReceiver.create(options.consumerListener(new MicrometerConsumerListener(meterRegistry)))
+                .receive()
+                .groupBy(record -> record.receiverOffset().topicPartition())
+                .flatMap(partition -> partition.concatMap(record -> process(name, record, handler, meters)), MAX_PARTITIONS)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Reiniciando consumidor {}: {}", name, signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    private static <V> Mono<Void> process(String name, ReceiverRecord<String, V> record, Function<V, Mono<Void>> handler,
+                                          ConsumerMeters meters) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (record.timestamp() > 0) {
+                meters.lag.record(Math.max(0, System.currentTimeMillis() - record.timestamp()), TimeUnit.MILLISECONDS);
+            }
+            Mono<Void> processing = record.value() == null
+                    ? Mono.fromRunnable(() -> {
+                        meters.unreadable.increment();
+                        log.warn("Registro ilegível em {} (offset {}) descartado", name, record.offset());
+                    })
+                    : Mono.defer(() -> handler.apply(record.value()))
+                            .retryWhen(Retry.backoff(HANDLER_RETRIES, Duration.ofMillis(500)))
+                            .doOnSuccess(v -> meters.succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                            .onErrorResume(e -> {
+                                meters.failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                log.error("Falha ao processar {} (offset {}): {}", name, record.offset(), e.getMessage(), e);
+                                return Mono.empty();
+                            });
+            return processing.then(Mono.fromRunnable(() -> record.receiverOffset().acknowledge()));
+        });
+    }
+
+    /**
+     * Atraso de cada registro (do timestamp do produtor até o início do processamento) e tempo do handler,
+     * incluindo as retentativas. O lag em número de registros vem das métricas nativas do consumidor Kafka.
+     */
+    private static final class ConsumerMeters {
+
+        private final Timer lag;
+        private final Timer succeeded;
+        private final Timer failed;
+        private final Counter unreadable;
+
+        ConsumerMeters(String topic, MeterRegistry meterRegistry) {
+            this.lag = Timer.builder("kafka.consumer.record.lag")
+                    .description("Tempo entre a produção do registro e o início do seu processamento")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+            this.succeeded = handlerTimer(meterRegistry, topic, "success");
+            this.failed = handlerTimer(meterRegistry, topic, "failure");
+            this.unreadable = Counter.builder("kafka.consumer.unreadable")
+                    .description("Registros descartados por falha de desserialização")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+        }
+
+        private static Timer handlerTimer(MeterRegistry meterRegistry, String topic, String result) {
+            return Timer.builder("kafka.consumer.handler")
+                    .description("Tempo de processamento de um registro, com retentativas")
+                    .tag("topic", topic)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
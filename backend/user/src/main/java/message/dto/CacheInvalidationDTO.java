@@ -0,0 +1,27 @@
+package message.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Invalidações de cache acumuladas por uma réplica em uma rajada e publicadas como um único registro.
+ * Usuários são identificados pelo e-mail e permissões por "ROLE:ACTION"; {@link #ALL_PERMISSIONS} invalida a matriz inteira.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheInvalidationDTO {
+
+    public static final String ALL_PERMISSIONS = "*";
+
+    @JsonProperty("origin")
+    private String origin;
+    @JsonProperty("users")
+    private List<String> users;
+    @JsonProperty("permissions")
+    private List<String> permissions;
+}
@@ -1,29 +1,54 @@
 package message.producer;
 
 import message.dto.PermissionEventDTO;
+import message.dto.PermissionSnapshotDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Locale;
 
 @Service
 public class PermissionProducer {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionProducer.class);
+
+    public static final String PERMISSIONS_UPDATE_TOPIC = "permissions-update";
+    private static final String SNAPSHOT_KEY = "permissions-snapshot";
+
     private final KafkaTemplate<String, PermissionEventDTO> kafkaTemplate;
+    private final KafkaTemplate<String, PermissionSnapshotDTO> snapshotKafkaTemplate;
 
-    public PermissionProducer(KafkaTemplate<String, PermissionEventDTO> kafkaTemplate) {
+    public PermissionProducer(KafkaTemplate<String, PermissionEventDTO> kafkaTemplate,
+                              KafkaTemplate<String, PermissionSnapshotDTO> snapshotKafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
+        this.snapshotKafkaTemplate = snapshotKafkaTemplate;
     }
 
-    public void sendPermissionsAll(String replyTopic, List<PermissionEventDTO> permissions) {
-        for (PermissionEventDTO permission : permissions) {
-            kafkaTemplate.send(replyTopic, permission);
-        }
-        System.out.println("📡 Enviadas " + permissions.size() + " permissões para " + replyTopic);
+    /**
+     * Envia o snapshot com a versão obtida da sequência permission_snapshot_version.
+     */
+    public Mono<Void> sendPermissionsAll(String replyTopic, long version, List<PermissionEventDTO> permissions) {
+        PermissionSnapshotDTO snapshot = new PermissionSnapshotDTO(version, PermissionSnapshotDTO.checksumOf(permissions), permissions);
+        return Mono.fromFuture(() -> snapshotKafkaTemplate.send(replyTopic, SNAPSHOT_KEY, snapshot))
+                .doOnSuccess(result -> log.info("Snapshot v{} com {} permissões enviado para {}", version, permissions.size(), replyTopic))
+                .then();
     }
 
 
+    /**
+     * Eventos da mesma role+action compartilham a chave e, portanto, a partição: o consumidor os recebe na ordem
+     * em que foram produzidos, mesmo com o tópico espalhado por várias partições.
+     */
     public void sendPermissionUpdate(PermissionEventDTO event) {
-        kafkaTemplate.send("permissions-update", event);
+        kafkaTemplate.send(PERMISSIONS_UPDATE_TOPIC, keyOf(event), event);
+    }
+
+    static String keyOf(PermissionEventDTO event) {
+        // Normalizada como a matriz e role_permissions: "admin:read_item" e "ADMIN:READ_ITEM" caem na mesma partição
+        return event.getRole().toUpperCase(Locale.ROOT) + ":" + event.getAction().toUpperCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,94 @@
+package message.service;
+
+import enums.Action;
+import enums.Role;
+
+import java.util.Arrays;
+
+/**
+ * Matriz de permissões imutável: um long por {@link Role}, com o bit {@code Action.ordinal()} ligado quando a ação
+ * está ativa. Alterações devolvem uma cópia, que é publicada de uma vez no lugar da anterior.
+ */
+final class PermissionMatrix {
+
+    static final PermissionMatrix EMPTY = new PermissionMatrix(new long[Role.values().length]);
+
+    private static final Role[] ROLES = Role.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    static {
+        if (ACTIONS.length > Long.SIZE) {
+            throw new IllegalStateException("A matriz de permissões comporta no máximo " + Long.SIZE + " ações");
+        }
+    }
+
+    private final long[] grants;
+
+    private PermissionMatrix(long[] grants) {
+        this.grants = grants;
+    }
+
+    boolean allows(Role role, Action action) {
+        return (grants[role.ordinal()] & (1L << action.ordinal())) != 0;
+    }
+
+    PermissionMatrix with(Role role, Action action, boolean active) {
+        long bit = 1L << action.ordinal();
+        long current = grants[role.ordinal()];
+        long updated = active ? current | bit : current & ~bit;
+        if (updated == current) {
+            return this;
+        }
+        long[] copy = Arrays.copyOf(grants, grants.length);
+        copy[role.ordinal()] = updated;
+        return new PermissionMatrix(copy);
+    }
+
+    /**
+     * Monta a matriz a partir de linhas (role, action) ativas; nomes fora dos enums são ignorados.
+     */
+    static final class Builder {
+
+        private final long[] grants = new long[ROLES.length];
+
+        Builder grant(String role, String action) {
+            Role parsedRole = roleOf(role);
+            Action parsedAction = actionOf(action);
+            if (parsedRole != null && parsedAction != null) {
+                grants[parsedRole.ordinal()] |= 1L << parsedAction.ordinal();
+            }
+            return this;
+        }
+
+        PermissionMatrix build() {
+            return new PermissionMatrix(grants.clone());
+        }
+    }
+
+    /**
+     * Converte sem lançar exceção nem alocar: compara ignorando maiúsculas com as constantes do enum.
+     */
+    static Role roleOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (Role role : ROLES) {
+            if (role.name().equalsIgnoreCase(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    static Action actionOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (Action action : ACTIONS) {
+            if (action.name().equalsIgnoreCase(name)) {
+                return action;
+            }
+        }
+        return null;
+    }
+}
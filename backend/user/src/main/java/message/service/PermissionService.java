@@ -1,28 +1,100 @@
 package message.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import enums.Action;
+import enums.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import message.dto.PermissionEventDTO;
+import message.producer.CacheInvalidationProducer;
 import message.producer.PermissionProducer;
 import model.RolePermissionModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import repository.RolePermissionRepository;
+import security.identity.TrustedIdentity;
 import security.jwt.JwtTokenProvider;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Service
 public class PermissionService {
 
+    private static final Logger log = LoggerFactory.getLogger(PermissionService.class);
+
+    private static final Mono<Boolean> GRANTED = Mono.just(true);
+    private static final Mono<Boolean> DENIED = Mono.just(false);
+
     private final PermissionProducer permissionProducer;
     private final RolePermissionRepository rolePermissionRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final CacheInvalidationProducer cacheInvalidationProducer;
+
+    /**
+     * Permissões ativas de cada role, carregadas ao subir e trocadas por uma cópia a cada alteração confirmada.
+     * Enquanto a carga inicial não termina, as checagens consultam o banco.
+     */
+    private final AtomicReference<PermissionMatrix> permissionMatrix = new AtomicReference<>(PermissionMatrix.EMPTY);
+    private volatile boolean matrixLoaded = false;
+
+    /**
+     * Alterações aplicadas à matriz enquanto alguma recarga lê as permissões ativas. Cada recarga em andamento tem
+     * a sua lista e a reaplica na matriz nova antes de publicá-la. Protegido por matrixLock, que também serializa
+     * as trocas da matriz.
+     */
+    private final List<List<MatrixChange>> reloadChanges = new ArrayList<>();
+    private final Object matrixLock = new Object();
+
+    /**
+     * Consultas ao banco em andamento por "ROLE:ACTION", usadas só até a matriz carregar: checagens simultâneas da
+     * mesma permissão compartilham uma ida ao banco. A entrada sai ao fim da consulta, sem guardar o resultado.
+     */
+    private final AsyncCache<String, Boolean> pendingLookups = Caffeine.newBuilder().buildAsync();
+
+    // Checagens de permissão: "hit" respondidas pela matriz, "miss" pelo banco (matriz ainda não carregada),
+    // "none" negadas sem consulta por falta de role conhecida
+    private final Counter grantedFromMatrix;
+    private final Counter deniedFromMatrix;
+    private final Counter grantedFromDatabase;
+    private final Counter deniedFromDatabase;
+    private final Counter deniedWithoutRole;
 
     public PermissionService(PermissionProducer permissionProducer,
                              RolePermissionRepository rolePermissionRepository,
-                             JwtTokenProvider jwtTokenProvider) {
+                             JwtTokenProvider jwtTokenProvider,
+                             CacheInvalidationProducer cacheInvalidationProducer,
+                             MeterRegistry meterRegistry) {
         this.permissionProducer = permissionProducer;
         this.rolePermissionRepository = rolePermissionRepository;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.cacheInvalidationProducer = cacheInvalidationProducer;
+        this.grantedFromMatrix = checkCounter(meterRegistry, "hit", "granted");
+        this.deniedFromMatrix = checkCounter(meterRegistry, "hit", "denied");
+        this.grantedFromDatabase = checkCounter(meterRegistry, "miss", "granted");
+        this.deniedFromDatabase = checkCounter(meterRegistry, "miss", "denied");
+        this.deniedWithoutRole = checkCounter(meterRegistry, "none", "denied");
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String lookup, String result) {
+        return Counter.builder("permission.checks")
+                .tag("lookup", lookup)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reloadLocal().subscribe(null, e -> log.error("Falha ao carregar a matriz de permissões: {}", e.getMessage(), e));
     }
 
     public Mono<ResponseEntity<String>> processPermissionEvent(PermissionEventDTO event) {
@@ -35,17 +107,14 @@ public class PermissionService {
     }
 
     public Mono<Void> sendAllPermissions(String replyTopic) {
-        return rolePermissionRepository.findAll()
-                .map(permission -> convertToDTO(permission, "LOAD_ALL_PERMISSIONS"))
-                .collectList()
-                .doOnSuccess(permissions -> {
-                    if (!permissions.isEmpty()) {
-                        permissionProducer.sendPermissionsAll(replyTopic, permissions);
-                    } else {
-                        System.out.println("⚠️ Nenhuma permissão para enviar");
-                    }
-                })
-                .then();
+        // A versão é tirada antes da leitura: um snapshot com versão maior nunca reflete um estado mais antigo
+        // que o de uma versão menor lida depois dele
+        return rolePermissionRepository.nextSnapshotVersion()
+                .flatMap(version -> rolePermissionRepository.findAll()
+                        .map(permission -> convertToDTO(permission, "LOAD_ALL_PERMISSIONS"))
+                        .collectList()
+                        // Um snapshot vazio também é enviado: ele conclui a sincronização do lado de quem pediu
+                        .flatMap(permissions -> permissionProducer.sendPermissionsAll(replyTopic, version, permissions)));
     }
 
     private Mono<ResponseEntity<String>> addPermission(PermissionEventDTO event) {
@@ -57,7 +126,7 @@ public class PermissionService {
                         rolePermissionRepository.save(new RolePermissionModel(event.getRole(), event.getAction(), event.isActive()))
                                 .flatMap(saved -> {
                                     PermissionEventDTO savedEvent = convertToDTO(saved, "ADDED");
-                                    permissionProducer.sendPermissionUpdate(savedEvent);
+                                    publishUpdate(savedEvent);
                                     return Mono.just(ResponseEntity.status(HttpStatus.CREATED).body("Permissão criada"));
                                 })
                 );
@@ -70,7 +139,7 @@ public class PermissionService {
                     return rolePermissionRepository.save(existing)
                             .flatMap(updated -> {
                                 PermissionEventDTO updatedEvent = convertToDTO(updated, "UPDATED");
-                                permissionProducer.sendPermissionUpdate(updatedEvent);
+                                publishUpdate(updatedEvent);
                                 return Mono.just(ResponseEntity.ok("Permissão atualizada"));
                             });
                 })
@@ -85,7 +154,7 @@ public class PermissionService {
                         rolePermissionRepository.delete(existing)
                                 .then(Mono.defer(() -> {
                                     PermissionEventDTO removedEvent = convertToDTO(existing, "REMOVED");
-                                    permissionProducer.sendPermissionUpdate(removedEvent);
+                                    publishUpdate(removedEvent);
                                     return Mono.just(ResponseEntity.ok("Permissão removida"));
                                 }))
                 )
@@ -94,6 +163,74 @@ public class PermissionService {
                 );
     }
 
+    /**
+     * Aplica a alteração já gravada na matriz local, avisa as outras réplicas e a publica em permissions-update.
+     */
+    private void publishUpdate(PermissionEventDTO event) {
+        applyLocal(event.getRole(), event.getAction(), !"REMOVED".equals(event.getEventType()) && event.isActive());
+        cacheInvalidationProducer.invalidatePermission(event.getRole(), event.getAction());
+        permissionProducer.sendPermissionUpdate(event);
+    }
+
+    /**
+     * Relê uma permissão do banco para a matriz, após ela ter sido alterada por outra réplica.
+     */
+    public Mono<Void> refreshLocal(String role, String action) {
+        return rolePermissionRepository.findByRoleAndAction(role, action)
+                .map(RolePermissionModel::isActive)
+                .defaultIfEmpty(false)
+                .doOnNext(active -> applyLocal(role, action, active))
+                .then();
+    }
+
+    /**
+     * Recarrega a matriz inteira a partir das permissões ativas e a publica de uma vez, com as alterações feitas
+     * durante a leitura já reaplicadas.
+     */
+    public Mono<Void> reloadLocal() {
+        return Mono.defer(() -> {
+            // Registrada antes da consulta: o que for alterado depois dela pode não estar no resultado
+            List<MatrixChange> changes = new ArrayList<>();
+            synchronized (matrixLock) {
+                reloadChanges.add(changes);
+            }
+            return rolePermissionRepository.findAllActive()
+                    .collect(PermissionMatrix.Builder::new, (builder, permission) -> builder.grant(permission.getRole(), permission.getAction()))
+                    .doOnNext(builder -> {
+                        synchronized (matrixLock) {
+                            PermissionMatrix matrix = builder.build();
+                            for (MatrixChange change : changes) {
+                                matrix = change.applyTo(matrix);
+                            }
+                            permissionMatrix.set(matrix);
+                            matrixLoaded = true;
+                        }
+                        log.info("Matriz de permissões carregada ({} alterações reaplicadas)", changes.size());
+                    })
+                    .doFinally(signal -> {
+                        synchronized (matrixLock) {
+                            reloadChanges.remove(changes);
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    private void applyLocal(String roleName, String actionName, boolean active) {
+        Role role = PermissionMatrix.roleOf(roleName);
+        Action action = PermissionMatrix.actionOf(actionName);
+        if (role == null || action == null) {
+            return;
+        }
+        MatrixChange change = new MatrixChange(role, action, active);
+        synchronized (matrixLock) {
+            permissionMatrix.set(change.applyTo(permissionMatrix.get()));
+            for (List<MatrixChange> changes : reloadChanges) {
+                changes.add(change);
+            }
+        }
+    }
+
     private PermissionEventDTO convertToDTO(RolePermissionModel model, String eventType) {
         return new PermissionEventDTO(
                 model.getRole(),
@@ -103,22 +240,59 @@ public class PermissionService {
         );
     }
 
-    public Mono<Boolean> hasPermission(String token, String actionString) {
-        if (token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
+    /**
+     * Usa a identidade repassada pelo gateway quando presente; sem ela, extrai a role do próprio token.
+     * Com a matriz carregada, a checagem é um acesso a array e um teste de bit.
+     */
+    public Mono<Boolean> hasPermission(String token, Action action) {
+        return Mono.deferContextual(context -> {
+            String roleName = context.hasKey(TrustedIdentity.class)
+                    ? context.get(TrustedIdentity.class).role()
+                    : jwtTokenProvider.getRoleFromToken(stripBearer(token));
+            Role role = PermissionMatrix.roleOf(roleName);
+            if (role == null) {
+                deniedWithoutRole.increment();
+                return DENIED;
+            }
 
-        String roleName = jwtTokenProvider.getRoleFromToken(token);
-        if (roleName == null) {
-            return Mono.just(false);
-        }
+            if (!matrixLoaded) {
+                return lookupFromDatabase(role, action)
+                        .doOnNext(granted -> (granted ? grantedFromDatabase : deniedFromDatabase).increment());
+            }
 
-        String uppercaseRole = roleName.toUpperCase();
-        actionString = actionString.toUpperCase();
+            if (permissionMatrix.get().allows(role, action)) {
+                grantedFromMatrix.increment();
+                return GRANTED;
+            }
+            deniedFromMatrix.increment();
+            return DENIED;
+        });
+    }
 
-        return rolePermissionRepository.findByRoleAndAction(uppercaseRole, actionString)
-                .map(RolePermissionModel::isActive)
-                .defaultIfEmpty(false);
+    private Mono<Boolean> lookupFromDatabase(Role role, Action action) {
+        String key = role.name() + ':' + action.name();
+        CompletableFuture<Boolean> lookup = pendingLookups.get(key, (k, executor) ->
+                rolePermissionRepository.findByRoleAndAction(role.name(), action.name())
+                        .map(RolePermissionModel::isActive)
+                        .defaultIfEmpty(false)
+                        .toFuture());
+        lookup.whenComplete((granted, error) -> pendingLookups.asMap().remove(key, lookup));
+        // suppressCancel: quem desiste da requisição não cancela a consulta compartilhada com os demais
+        return Mono.fromFuture(lookup, true);
+    }
+
+    private static String stripBearer(String token) {
+        return token.startsWith("Bearer ") ? token.substring(7) : token;
+    }
+
+    /**
+     * Alteração de uma célula da matriz.
+     */
+    private record MatrixChange(Role role, Action action, boolean active) {
+
+        PermissionMatrix applyTo(PermissionMatrix matrix) {
+            return matrix.with(role, action, active);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -18,4 +18,8 @@ public interface RolePermissionRepository extends ReactiveCrudRepository<RolePer
     @Query("SELECT * FROM role_permissions WHERE role = :role AND action = :action LIMIT 1")
     Mono<RolePermissionModel> findByRoleAndAction(String role, String action);
 
+    // Próxima versão de snapshot de permissões, compartilhada por todas as réplicas do user
+    @Query("SELECT nextval('permission_snapshot_version')")
+    Mono<Long> nextSnapshotVersion();
+
 }
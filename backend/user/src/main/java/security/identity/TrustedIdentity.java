@@ -0,0 +1,7 @@
+package security.identity;
+
+/**
+ * Identidade verificada pelo gateway e repassada nos cabeçalhos X-Auth-*.
+ */
+public record TrustedIdentity(String subject, String role) {
+}
@@ -0,0 +1,35 @@
+package security.identity;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Base64;
+
+/**
+ * Coloca no contexto do Reactor a identidade repassada pelo gateway, para que as checagens de permissão
+ * não precisem decodificar o JWT novamente.
+ */
+@Component
+public class TrustedIdentityFilter implements WebFilter {
+
+    private final TrustedIdentityHeaders identityHeaders;
+
+    public TrustedIdentityFilter(@Value("${identity.header.secret}") String secret,
+                                 @Value("${identity.header.max-age-seconds:60}") long maxAgeSeconds) {
+        this.identityHeaders = new TrustedIdentityHeaders(Base64.getDecoder().decode(secret), maxAgeSeconds);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        TrustedIdentity identity = identityHeaders.resolve(exchange.getRequest().getHeaders());
+        if (identity == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(TrustedIdentity.class, identity));
+    }
+}
@@ -0,0 +1,92 @@
+package security.password;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import security.exceptions.PasswordHashingUnavailableException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executa o BCrypt fora do event loop do Netty, em um pool dedicado com fila limitada.
+ * Quando a fila enche, a chamada falha na hora com {@link PasswordHashingUnavailableException} em vez de
+ * acumular logins que estourariam o timeout de qualquer forma.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHasher(@Value("${password.hash.threads:0}") int threads,
+                          @Value("${password.hash.queue-capacity:64}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        // BCrypt é puramente CPU: por padrão um thread por núcleo
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(executor, "password-hash");
+
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Operações de hash aguardando um thread livre")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hash.latency")
+                .description("Tempo de fila + hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash.latency")
+                .description("Tempo de fila + hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+    }
+
+    public Mono<String> encode(String raw) {
+        return offload(encodeTimer, () -> passwordEncoder.encode(raw));
+    }
+
+    public Mono<Boolean> matches(String raw, String encoded) {
+        return offload(matchesTimer, () -> passwordEncoder.matches(raw, encoded));
+    }
+
+    private <T> Mono<T> offload(Timer timer, Supplier<T> work) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.fromSupplier(work)
+                    .subscribeOn(scheduler)
+                    .doOnTerminate(() -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).onErrorMap(RejectedExecutionException.class,
+                e -> new PasswordHashingUnavailableException("Fila de hash de senha cheia"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+}
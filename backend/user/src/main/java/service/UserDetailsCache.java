@@ -0,0 +1,69 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dto.UserDetailsDTO;
+import enums.Role;
+import message.producer.CacheInvalidationProducer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import repository.UserRepository;
+
+import java.time.Duration;
+
+/**
+ * Cache read-through dos detalhes de usuário, por e-mail.
+ * Guarda o DTO já resolvido (não o Mono), com tamanho e TTL limitados. Buscas simultâneas pelo mesmo e-mail
+ * compartilham a mesma consulta ao banco. Usuários inexistentes não são guardados.
+ * A checagem de permissão fica fora do cache, em quem chama.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationProducer cacheInvalidationProducer;
+    private final AsyncCache<String, UserDetailsDTO> cache;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            CacheInvalidationProducer cacheInvalidationProducer,
+                            @Value("${user.cache.max-size:10000}") long maxSize,
+                            @Value("${user.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cacheInvalidationProducer = cacheInvalidationProducer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .buildAsync();
+    }
+
+    public Mono<UserDetailsDTO> get(String email) {
+        // suppressCancel: o cancelamento de um assinante não pode cancelar a consulta compartilhada com os demais
+        return Mono.fromFuture(cache.get(email, (key, executor) -> load(key).toFuture()), true);
+    }
+
+    /**
+     * Invalida a entrada local e avisa as demais réplicas.
+     */
+    public void invalidate(String email) {
+        evictLocal(email);
+        cacheInvalidationProducer.invalidateUser(email);
+    }
+
+    public void evictLocal(String email) {
+        if (email != null) {
+            cache.synchronous().invalidate(email);
+        }
+    }
+
+    private Mono<UserDetailsDTO> load(String email) {
+        return userRepository.findByEmail(email)
+                .map(user -> {
+                    UserDetailsDTO dto = new UserDetailsDTO();
+                    dto.setName(user.getName());
+                    dto.setEmail(user.getEmail());
+                    dto.setRole(Role.valueOf(user.getRole().name()));
+                    return dto;
+                });
+    }
+}
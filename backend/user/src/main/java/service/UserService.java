@@ -1,21 +1,21 @@
 package service;
 
+import config.CorrelationId;
 import dto.*;
-import enums.Role;
+import enums.Action;
 import jakarta.validation.Valid;
 import message.service.PermissionService;
 import model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import repository.UserRepository;
+import security.exceptions.PasswordHashingUnavailableException;
 import security.jwt.JwtTokenProvider;
+import security.password.PasswordHasher;
 
 import java.time.Duration;
 
@@ -27,18 +27,22 @@ public class UserService {
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
     private final PermissionService permissionService;
-
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
+    private final UserDetailsCache userDetailsCache;
 
     // Timeout único para todos os métodos
     private static final Duration TIMEOUT = Duration.ofSeconds(5);
 
     public UserService(UserRepository userRepository,
                        JwtTokenProvider jwtTokenProvider,
-                       PermissionService permissionService) {
+                       PermissionService permissionService,
+                       PasswordHasher passwordHasher,
+                       UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
         this.permissionService = permissionService;
+        this.passwordHasher = passwordHasher;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
@@ -46,18 +50,19 @@ public class UserService {
      */
     public Mono<ResponseEntity<String>> authenticate(UserLoginRequest loginRequest) {
         return userRepository.findByEmail(loginRequest.getEmail())
-                .flatMap(user -> {
-                    if (!passwordMatches(loginRequest.getPassword(), user.getPassword())) {
-                        return Mono.just(ResponseEntity
-                                .status(HttpStatus.UNAUTHORIZED)
-                                .body("Credenciais inválidas"));
-                    }
-                    String token = jwtTokenProvider.generateToken(
-                            user.getEmail(),
-                            user.getRole().name()
-                    );
-                    return Mono.just(ResponseEntity.ok(token));
-                })
+                .flatMap(user -> passwordHasher.matches(loginRequest.getPassword(), user.getPassword())
+                        .map(matches -> {
+                            if (!matches) {
+                                return ResponseEntity
+                                        .status(HttpStatus.UNAUTHORIZED)
+                                        .body("Credenciais inválidas");
+                            }
+                            String token = jwtTokenProvider.generateToken(
+                                    user.getEmail(),
+                                    user.getRole().name()
+                            );
+                            return ResponseEntity.ok(token);
+                        }))
                 .defaultIfEmpty(ResponseEntity
                         .status(HttpStatus.UNAUTHORIZED)
                         .body("Credenciais inválidas"))
@@ -69,35 +74,36 @@ public class UserService {
      * Cria um novo usuário, caso permitido.
      */
     public Mono<ResponseEntity<String>> createUser(UserRequestDTO userRequestDTO, String token) {
-        log.info("CREATE USER START | E-mail: {}", userRequestDTO.getEmail());
-
-        return permissionService.hasPermission(token, "create_user")
+        return CorrelationId.log(() -> log.info("CREATE USER START | E-mail: {}", userRequestDTO.getEmail()))
+                .then(permissionService.hasPermission(token, Action.CREATE_USER))
                 .flatMap(canCreate -> {
                     if (!canCreate) {
-                        log.warn("Usuário sem permissão para criar usuário: {}", userRequestDTO.getEmail());
                         return Mono.just(ResponseEntity
-                                .status(HttpStatus.FORBIDDEN)
-                                .body("Sem permissão para criar usuário"));
+                                        .status(HttpStatus.FORBIDDEN)
+                                        .body("Sem permissão para criar usuário"))
+                                .handle(CorrelationId.logging(() ->
+                                        log.warn("Usuário sem permissão para criar usuário: {}", userRequestDTO.getEmail())));
                     }
 
                     return userRepository.findByEmail(userRequestDTO.getEmail())
-                            .flatMap(existing -> {
-                                log.warn("E-mail já cadastrado: {}", userRequestDTO.getEmail());
-                                return Mono.just(ResponseEntity
-                                        .status(HttpStatus.CONFLICT)
-                                        .body("Usuário com esse e-mail já existe"));
-                            })
+                            .map(existing -> ResponseEntity
+                                    .status(HttpStatus.CONFLICT)
+                                    .body("Usuário com esse e-mail já existe"))
+                            .handle(CorrelationId.logging(() -> log.warn("E-mail já cadastrado: {}", userRequestDTO.getEmail())))
                             .switchIfEmpty(Mono.defer(() -> {
-                                log.info("Criando novo usuário: {}", userRequestDTO.getEmail());
-
                                 User user = new User();
                                 user.setName(userRequestDTO.getName());
                                 user.setEmail(userRequestDTO.getEmail());
                                 user.setRole(userRequestDTO.getRole());
-                                user.setPassword(passwordEncoder.encode(userRequestDTO.getPassword()));
-                                user.setSecretPhrase(passwordEncoder.encode(userRequestDTO.getSecretPhrase()));
 
-                                return userRepository.save(user)
+                                return CorrelationId.log(() -> log.info("Criando novo usuário: {}", userRequestDTO.getEmail()))
+                                        .then(Mono.zip(passwordHasher.encode(userRequestDTO.getPassword()),
+                                                passwordHasher.encode(userRequestDTO.getSecretPhrase())))
+                                        .flatMap(hashes -> {
+                                            user.setPassword(hashes.getT1());
+                                            user.setSecretPhrase(hashes.getT2());
+                                            return userRepository.save(user);
+                                        })
                                         .map(saved -> ResponseEntity
                                                 .status(HttpStatus.CREATED)
                                                 .body("Usuário criado com sucesso"));
@@ -105,26 +111,27 @@ public class UserService {
                 })
                 .timeout(TIMEOUT)
                 .onErrorResume(this::handleTimeout)
-                .doFinally(signalType -> log.info("CREATE USER END"));
+                .handle(CorrelationId.logging(() -> log.info("CREATE USER END")));
     }
 
     /**
      * Deleta um usuário, se permitido.
      */
     public Mono<ResponseEntity<String>> deleteUser(EmailDTO emailDTO, String token) {
-        log.info("DELETE USER START | E-mail: {}", emailDTO.getEmail());
-
-        return permissionService.hasPermission(token, "delete_user")
+        return CorrelationId.log(() -> log.info("DELETE USER START | E-mail: {}", emailDTO.getEmail()))
+                .then(permissionService.hasPermission(token, Action.DELETE_USER))
                 .flatMap(canDelete -> {
                     if (!canDelete) {
-                        log.warn("Usuário sem permissão para deletar: {}", emailDTO.getEmail());
                         return Mono.just(ResponseEntity
-                                .status(HttpStatus.FORBIDDEN)
-                                .body("Sem permissão para deletar usuário"));
+                                        .status(HttpStatus.FORBIDDEN)
+                                        .body("Sem permissão para deletar usuário"))
+                                .handle(CorrelationId.logging(() ->
+                                        log.warn("Usuário sem permissão para deletar: {}", emailDTO.getEmail())));
                     }
                     return userRepository.findByEmail(emailDTO.getEmail())
                             .flatMap(existingUser ->
                                     userRepository.delete(existingUser)
+                                            .doOnSuccess(v -> userDetailsCache.invalidate(existingUser.getEmail()))
                                             .then(Mono.just(ResponseEntity.ok("Usuário deletado com sucesso"))))
                             .switchIfEmpty(Mono.just(ResponseEntity
                                     .status(HttpStatus.NOT_FOUND)
@@ -132,103 +139,105 @@ public class UserService {
                 })
                 .timeout(TIMEOUT)
                 .onErrorResume(this::handleTimeout)
-                .doFinally(signalType -> log.info("DELETE USER END"));
+                .handle(CorrelationId.logging(() -> log.info("DELETE USER END")));
     }
 
     /**
      * Atualiza os dados de um usuário existente, se permitido.
      */
     public Mono<ResponseEntity<?>> updateUser(@Valid UserUpdateDTO userUpdateDTO) {
-        log.info("UPDATE USER START | E-mail antigo: {}", userUpdateDTO.getOldEmail());
+        return CorrelationId.log(() -> log.info("UPDATE USER START | E-mail antigo: {}", userUpdateDTO.getOldEmail()))
+                .then(userRepository.findByEmail(userUpdateDTO.getOldEmail()))
+                .flatMap(user -> passwordHasher.matches(userUpdateDTO.getSecretPhrase(), user.getSecretPhrase())
+                        .flatMap(secretMatches -> {
+                            if (!secretMatches) {
+                                return Mono.<ResponseEntity<?>>just(ResponseEntity
+                                                .status(HttpStatus.UNAUTHORIZED)
+                                                .body("Frase secreta incorreta"))
+                                        .handle(CorrelationId.logging(() -> log.warn(
+                                                "Frase secreta incorreta para atualização de usuário: {}", userUpdateDTO.getOldEmail())));
+                            }
+                            String oldEmail = user.getEmail();
+                            return applyUpdate(user, userUpdateDTO)
+                                    .doOnSuccess(response -> {
+                                        userDetailsCache.invalidate(oldEmail);
+                                        userDetailsCache.invalidate(user.getEmail());
+                                    });
+                        }))
+                .switchIfEmpty(Mono.just(ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body("Usuário não encontrado: " + userUpdateDTO.getOldEmail())))
+                .timeout(TIMEOUT)
+                .onErrorResume(this::handleTimeout)
+                .handle(CorrelationId.logging(() -> log.info("UPDATE USER END")));
+    }
 
-        return userRepository.findByEmail(userUpdateDTO.getOldEmail())
-                .flatMap(user -> {
-                    if (!passwordEncoder.matches(userUpdateDTO.getSecretPhrase(), user.getSecretPhrase())) {
-                        log.warn("Frase secreta incorreta para atualização de usuário: {}", userUpdateDTO.getOldEmail());
-                        return Mono.just(ResponseEntity
-                                .status(HttpStatus.UNAUTHORIZED)
-                                .body("Frase secreta incorreta"));
-                    }
+    private Mono<ResponseEntity<?>> applyUpdate(User user, UserUpdateDTO userUpdateDTO) {
+        // Atualiza nome
+        if (userUpdateDTO.getName() != null) {
+            user.setName(userUpdateDTO.getName());
+        }
 
-                    // Atualiza nome
-                    if (userUpdateDTO.getName() != null) {
-                        user.setName(userUpdateDTO.getName());
-                    }
+        // Atualiza e-mail
+        if (userUpdateDTO.getNewEmail() != null &&
+                !user.getEmail().equals(userUpdateDTO.getNewEmail())) {
 
-                    // Atualiza e-mail
-                    if (userUpdateDTO.getNewEmail() != null &&
-                            !user.getEmail().equals(userUpdateDTO.getNewEmail())) {
-
-                        return userRepository.findByEmail(userUpdateDTO.getNewEmail())
-                                .flatMap(exist -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
-                                        .body("Email já cadastrado")))
-                                .switchIfEmpty(Mono.defer(() -> {
-                                    user.setEmail(userUpdateDTO.getNewEmail());
-                                    return userRepository.save(user)
-                                            .map(saved -> ResponseEntity.ok().build());
-                                }));
-                    }
+            return userRepository.findByEmail(userUpdateDTO.getNewEmail())
+                    .<ResponseEntity<?>>flatMap(exist -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body("Email já cadastrado")))
+                    .switchIfEmpty(Mono.defer(() -> {
+                        user.setEmail(userUpdateDTO.getNewEmail());
+                        return userRepository.save(user)
+                                .map(saved -> ResponseEntity.ok().build());
+                    }));
+        }
 
-                    // Atualiza senha
-                    if (userUpdateDTO.getNewPassword() != null) {
-                        if (!passwordEncoder.matches(userUpdateDTO.getNewPassword(), user.getPassword())) {
-                            user.setPassword(passwordEncoder.encode(userUpdateDTO.getNewPassword()));
-                        } else {
-                            log.warn("Nova senha deve ser diferente da atual para: {}", userUpdateDTO.getOldEmail());
-                            return Mono.just(ResponseEntity
-                                    .status(HttpStatus.BAD_REQUEST)
-                                    .body("A nova senha deve ser diferente da atual"));
+        // Atualiza senha
+        if (userUpdateDTO.getNewPassword() != null) {
+            return passwordHasher.matches(userUpdateDTO.getNewPassword(), user.getPassword())
+                    .flatMap(samePassword -> {
+                        if (samePassword) {
+                            return Mono.<ResponseEntity<?>>just(ResponseEntity
+                                            .status(HttpStatus.BAD_REQUEST)
+                                            .body("A nova senha deve ser diferente da atual"))
+                                    .handle(CorrelationId.logging(() ->
+                                            log.warn("Nova senha deve ser diferente da atual para: {}", userUpdateDTO.getOldEmail())));
                         }
-                    }
+                        return passwordHasher.encode(userUpdateDTO.getNewPassword())
+                                .flatMap(encoded -> {
+                                    user.setPassword(encoded);
+                                    return userRepository.save(user);
+                                })
+                                .map(saved -> ResponseEntity.ok().build());
+                    });
+        }
 
-                    // Salva alterações
-                    return userRepository.save(user).map(saved -> ResponseEntity.ok().build());
-                })
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
-                        .body("Usuário não encontrado: " + userUpdateDTO.getOldEmail())))
-                .timeout(TIMEOUT)
-                .onErrorResume(this::handleTimeout)
-                .doFinally(signalType -> log.info("UPDATE USER END"));
+        // Salva alterações
+        return userRepository.save(user).map(saved -> ResponseEntity.ok().build());
     }
 
     /**
-     * Retorna um usuário pelo Email, armazenando em cache (permissão READ_USER exigida).
+     * Retorna um usuário pelo Email (permissão READ_USER exigida).
+     * A permissão é checada a cada chamada; só os detalhes do usuário vêm do cache.
      * Retorna um UserResponse como DTO.
      */
-    @Cacheable(value = "users", key = "#email")
     public Mono<ResponseEntity<?>> getUserByEmail(String email, String token) {
-        log.info("GET USER BY EMAIL START | E-mail: {}", email);
-
-        return permissionService.hasPermission(token, "READ_USER")
+        return CorrelationId.log(() -> log.info("GET USER BY EMAIL START | E-mail: {}", email))
+                .then(permissionService.hasPermission(token, Action.READ_USER))
                 .flatMap(canRead -> {
                     if (!canRead) {
-                        log.warn("Usuário sem permissão para ler dados: {}", email);
-                        return Mono.just(ResponseEntity
-                                .status(HttpStatus.FORBIDDEN)
-                                .body(null));
+                        return Mono.<ResponseEntity<?>>just(ResponseEntity
+                                        .status(HttpStatus.FORBIDDEN)
+                                        .body(null))
+                                .handle(CorrelationId.logging(() -> log.warn("Usuário sem permissão para ler dados: {}", email)));
                     }
-                    return userRepository.findByEmail(email)
-                            .flatMap(user -> {
-                                UserDetailsDTO dto = new UserDetailsDTO();
-                                dto.setName(user.getName());
-                                dto.setEmail(user.getEmail());
-                                dto.setRole(Role.valueOf(user.getRole().name()));
-
-                                return Mono.just(ResponseEntity.ok(dto));
-                            })
+                    return userDetailsCache.get(email)
+                            .<ResponseEntity<?>>map(ResponseEntity::ok)
                             .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
                 })
                 .timeout(TIMEOUT)
                 .onErrorResume(this::handleTimeout)
-                .doFinally(signalType -> log.info("GET USER BY EMAIL END"));
-    }
-
-    /**
-     * Método auxiliar para checar a senha.
-     */
-    private boolean passwordMatches(String raw, String encoded) {
-        return passwordEncoder.matches(raw, encoded);
+                .handle(CorrelationId.logging(() -> log.info("GET USER BY EMAIL END")));
     }
 
     /**
@@ -236,12 +245,18 @@ public class UserService {
      */
     private <T> Mono<ResponseEntity<T>> handleTimeout(Throwable throwable) {
         if (throwable instanceof java.util.concurrent.TimeoutException) {
-            log.error("Tempo limite atingido!");
-            return Mono.just(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT)
-                    .body((T) "Tempo limite atingido. Tente novamente mais tarde."));
+            return CorrelationId.log(() -> log.error("Tempo limite atingido!"))
+                    .thenReturn(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT)
+                            .body((T) "Tempo limite atingido. Tente novamente mais tarde."));
+        }
+        if (throwable instanceof PasswordHashingUnavailableException) {
+            return CorrelationId.log(() -> log.warn("Fila de hash de senha cheia, requisição recusada"))
+                    .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header("Retry-After", "1")
+                            .body((T) "Serviço ocupado. Tente novamente em instantes."));
         }
-        log.error("Erro inesperado: {}", throwable.getMessage(), throwable);
-        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body((T) "Erro ao processar requisição."));
+        return CorrelationId.log(() -> log.error("Erro inesperado: {}", throwable.getMessage(), throwable))
+                .thenReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body((T) "Erro ao processar requisição."));
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package message.service;
+
+import enums.Action;
+import enums.Role;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionMatrixTest {
+
+    @Test
+    void emptyMatrixDeniesEverything() {
+        for (Role role : Role.values()) {
+            for (Action action : Action.values()) {
+                assertFalse(PermissionMatrix.EMPTY.allows(role, action));
+            }
+        }
+    }
+
+    @Test
+    void builderGrantsOnlyTheGivenCells() {
+        PermissionMatrix matrix = new PermissionMatrix.Builder()
+                .grant("ADMIN", "CREATE_USER")
+                .grant("technician", "read_item")
+                .build();
+
+        assertTrue(matrix.allows(Role.ADMIN, Action.CREATE_USER));
+        assertTrue(matrix.allows(Role.TECHNICIAN, Action.READ_ITEM));
+        assertFalse(matrix.allows(Role.ADMIN, Action.READ_ITEM));
+        assertFalse(matrix.allows(Role.TECHNICIAN, Action.CREATE_USER));
+        assertFalse(matrix.allows(Role.ENGINEER, Action.READ_ITEM));
+    }
+
+    @Test
+    void builderIgnoresUnknownNames() {
+        PermissionMatrix matrix = new PermissionMatrix.Builder()
+                .grant("INTERN", "READ_ITEM")
+                .grant("ADMIN", "FLY")
+                .grant(null, "READ_ITEM")
+                .grant("ADMIN", null)
+                .build();
+
+        for (Role role : Role.values()) {
+            for (Action action : Action.values()) {
+                assertFalse(matrix.allows(role, action));
+            }
+        }
+    }
+
+    @Test
+    void builtMatrixDoesNotChangeWhenTheBuilderIsReused() {
+        PermissionMatrix.Builder builder = new PermissionMatrix.Builder().grant("ADMIN", "READ_ITEM");
+        PermissionMatrix matrix = builder.build();
+
+        builder.grant("ADMIN", "DELETE_ITEM");
+
+        assertFalse(matrix.allows(Role.ADMIN, Action.DELETE_ITEM));
+    }
+
+    @Test
+    void withReturnsACopyAndKeepsTheOriginal() {
+        PermissionMatrix original = new PermissionMatrix.Builder().grant("ENGINEER", "READ_ITEM").build();
+
+        PermissionMatrix granted = original.with(Role.ENGINEER, Action.DELETE_ITEM, true);
+        PermissionMatrix revoked = granted.with(Role.ENGINEER, Action.READ_ITEM, false);
+
+        assertFalse(original.allows(Role.ENGINEER, Action.DELETE_ITEM));
+        assertTrue(granted.allows(Role.ENGINEER, Action.DELETE_ITEM));
+        assertTrue(granted.allows(Role.ENGINEER, Action.READ_ITEM));
+        assertFalse(revoked.allows(Role.ENGINEER, Action.READ_ITEM));
+        assertTrue(revoked.allows(Role.ENGINEER, Action.DELETE_ITEM));
+        // As demais roles não são afetadas
+        assertFalse(revoked.allows(Role.COORDINATOR, Action.DELETE_ITEM));
+    }
+
+    @Test
+    void withReturnsTheSameInstanceWhenNothingChanges() {
+        PermissionMatrix matrix = new PermissionMatrix.Builder().grant("ADMIN", "READ_USER").build();
+
+        assertSame(matrix, matrix.with(Role.ADMIN, Action.READ_USER, true));
+        assertSame(matrix, matrix.with(Role.ADMIN, Action.DELETE_USER, false));
+    }
+
+    @Test
+    void namesAreParsedIgnoringCase() {
+        assertSame(Role.COORDINATOR, PermissionMatrix.roleOf("Coordinator"));
+        assertSame(Action.DELETE_USER, PermissionMatrix.actionOf("delete_user"));
+        assertNull(PermissionMatrix.roleOf("COORDINATORS"));
+        assertNull(PermissionMatrix.actionOf(""));
+        assertNull(PermissionMatrix.roleOf(null));
+    }
+}
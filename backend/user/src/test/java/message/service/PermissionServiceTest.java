@@ -0,0 +1,151 @@
+package message.service;
+
+import enums.Action;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import message.producer.CacheInvalidationProducer;
+import message.producer.PermissionProducer;
+import model.RolePermissionModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import repository.RolePermissionRepository;
+import security.identity.TrustedIdentity;
+import security.jwt.JwtTokenProvider;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionServiceTest {
+
+    @Mock
+    private PermissionProducer permissionProducer;
+    @Mock
+    private RolePermissionRepository rolePermissionRepository;
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+    @Mock
+    private CacheInvalidationProducer cacheInvalidationProducer;
+
+    private PermissionService permissionService;
+
+    @BeforeEach
+    void setUp() {
+        permissionService = new PermissionService(permissionProducer, rolePermissionRepository, jwtTokenProvider,
+                cacheInvalidationProducer, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reloadKeepsChangesAppliedWhileItWasReading() {
+        Sinks.Many<RolePermissionModel> active = Sinks.many().replay().all();
+        when(rolePermissionRepository.findAllActive()).thenReturn(active.asFlux());
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "DELETE_ITEM"))
+                .thenReturn(Mono.just(new RolePermissionModel("ADMIN", "DELETE_ITEM", true)));
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "READ_ITEM")).thenReturn(Mono.empty());
+
+        Disposable reload = permissionService.reloadLocal().subscribe();
+        // A leitura já viu READ_ITEM ativo e ainda não DELETE_ITEM; as duas mudam antes de ela terminar
+        active.tryEmitNext(new RolePermissionModel("ADMIN", "READ_ITEM", true));
+        permissionService.refreshLocal("ADMIN", "DELETE_ITEM").block();
+        permissionService.refreshLocal("ADMIN", "READ_ITEM").block();
+        active.tryEmitComplete();
+
+        assertTrue(reload.isDisposed());
+        assertTrue(check("ADMIN", Action.DELETE_ITEM));
+        assertFalse(check("ADMIN", Action.READ_ITEM));
+    }
+
+    @Test
+    void changesAfterTheReloadAreNotReplayedByTheNextOne() {
+        when(rolePermissionRepository.findAllActive())
+                .thenReturn(Flux.empty())
+                .thenReturn(Flux.just(new RolePermissionModel("ADMIN", "READ_ITEM", true)));
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "READ_ITEM")).thenReturn(Mono.empty());
+
+        permissionService.reloadLocal().block();
+        permissionService.refreshLocal("ADMIN", "READ_ITEM").block();
+        permissionService.reloadLocal().block();
+
+        assertTrue(check("ADMIN", Action.READ_ITEM));
+    }
+
+    @Test
+    void concurrentChecksBeforeTheLoadShareOneQuery() {
+        Sinks.One<RolePermissionModel> row = Sinks.one();
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "READ_ITEM")).thenReturn(row.asMono());
+
+        AtomicReference<Boolean> first = new AtomicReference<>();
+        AtomicReference<Boolean> second = new AtomicReference<>();
+        hasPermission("ADMIN", Action.READ_ITEM).subscribe(first::set);
+        hasPermission("ADMIN", Action.READ_ITEM).subscribe(second::set);
+        row.tryEmitValue(new RolePermissionModel("ADMIN", "READ_ITEM", true));
+
+        assertEquals(true, first.get());
+        assertEquals(true, second.get());
+        verify(rolePermissionRepository, times(1)).findByRoleAndAction("ADMIN", "READ_ITEM");
+    }
+
+    @Test
+    void finishedLookupIsNotReused() {
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "READ_ITEM"))
+                .thenReturn(Mono.just(new RolePermissionModel("ADMIN", "READ_ITEM", true)))
+                .thenReturn(Mono.empty());
+
+        assertTrue(check("ADMIN", Action.READ_ITEM));
+        assertFalse(check("ADMIN", Action.READ_ITEM));
+        verify(rolePermissionRepository, times(2)).findByRoleAndAction("ADMIN", "READ_ITEM");
+    }
+
+    @Test
+    void cancelledCheckDoesNotCancelTheSharedQuery() {
+        Sinks.One<RolePermissionModel> row = Sinks.one();
+        when(rolePermissionRepository.findByRoleAndAction("ADMIN", "READ_ITEM")).thenReturn(row.asMono());
+
+        AtomicReference<Boolean> remaining = new AtomicReference<>();
+        Disposable cancelled = hasPermission("ADMIN", Action.READ_ITEM).subscribe();
+        hasPermission("ADMIN", Action.READ_ITEM).subscribe(remaining::set);
+        cancelled.dispose();
+        row.tryEmitValue(new RolePermissionModel("ADMIN", "READ_ITEM", true));
+
+        assertEquals(true, remaining.get());
+    }
+
+    @Test
+    void loadedMatrixAnswersWithoutQueryingTheDatabase() {
+        when(rolePermissionRepository.findAllActive()).thenReturn(Flux.just(new RolePermissionModel("ADMIN", "READ_ITEM", true)));
+
+        permissionService.reloadLocal().block();
+
+        assertTrue(check("ADMIN", Action.READ_ITEM));
+        assertFalse(check("ADMIN", Action.DELETE_ITEM));
+        verify(rolePermissionRepository, times(0)).findByRoleAndAction("ADMIN", "READ_ITEM");
+    }
+
+    @Test
+    void unknownRoleIsDeniedWithoutQuerying() {
+        assertFalse(check("INTERN", Action.READ_ITEM));
+        verifyNoInteractions(rolePermissionRepository);
+    }
+
+    private Mono<Boolean> hasPermission(String role, Action action) {
+        return permissionService.hasPermission("", action)
+                .contextWrite(context -> context.put(TrustedIdentity.class, new TrustedIdentity("x@x", role)));
+    }
+
+    private boolean check(String role, Action action) {
+        return Boolean.TRUE.equals(hasPermission(role, action).block());
+    }
+}